@@ -0,0 +1,97 @@
+package seedfinder.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import seedfinder.biome.BiomeProvider;
+import seedfinder.biome.BiomeSet;
+import seedfinder.biome.Biomes;
+import seedfinder.util.BlockPos;
+import seedfinder.util.JavaRandom;
+
+/**
+ * Evaluation of the GenLayer stack. The layers remember the last area they
+ * generated, and the Voronoi zoom caches the cells of single blocks, so each
+ * query is moved far away from the last one, to measure generating new
+ * biomes rather than looking up the ones already generated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiomeBenchmark {
+
+	private static final long SEED = 123456789L;
+	/**
+	 * How far apart the queries are, in blocks, which is further than any of
+	 * the layers reach
+	 */
+	private static final int QUERY_SPACING = 4096;
+	// The same biomes that strongholds are moved to
+	private static final BiomeSet STRONGHOLD_BIOMES = Biomes.allBiomesExcept(it -> Biomes.getBaseHeight(it) <= 0);
+
+	private int[] biomes;
+	private Random rand;
+	private int queryCount;
+
+	@Setup
+	public void setUp() {
+		BiomeProvider.setWorldSeed(SEED);
+		rand = new JavaRandom(SEED);
+		queryCount = 0;
+	}
+
+	// The x offset of the next query in blocks, the same sequence each run.
+	// By the time the queries wrap around, the earlier ones have long since
+	// been forgotten.
+	private int nextOffset() {
+		return (queryCount++ & 0xfff) * QUERY_SPACING;
+	}
+
+	/**
+	 * The biomes needed to generate a chunk's terrain
+	 */
+	@Benchmark
+	public int[] getBiomesForGeneration() {
+		return biomes = BiomeProvider.getBiomesForGeneration(biomes, 1600 + (nextOffset() >> 2), -480, 16, 16);
+	}
+
+	/**
+	 * The whole-chunk biome query done when populating
+	 */
+	@Benchmark
+	public int[] getBiomesChunk() {
+		return biomes = BiomeProvider.getBiomes(biomes, 1600 + nextOffset(), -480, 16, 16);
+	}
+
+	/**
+	 * The single block query done by the temple and mineshaft finders
+	 */
+	@Benchmark
+	public int[] getBiomesSingle() {
+		return biomes = BiomeProvider.getBiomes(biomes, 1607 + nextOffset(), -471, 1, 1);
+	}
+
+	/**
+	 * The biome correction of a stronghold position
+	 */
+	@Benchmark
+	public BlockPos findBiomePosition() {
+		rand.setSeed(SEED);
+		return BiomeProvider.findBiomePosition(1608 + nextOffset(), -472, 112, STRONGHOLD_BIOMES, rand);
+	}
+
+}
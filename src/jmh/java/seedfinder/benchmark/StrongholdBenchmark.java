@@ -0,0 +1,133 @@
+package seedfinder.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import seedfinder.Blocks;
+import seedfinder.biome.BiomeProvider;
+import seedfinder.loot.LootContext;
+import seedfinder.loot.LootTables;
+import seedfinder.structure.MineshaftFinder;
+import seedfinder.structure.StrongholdFinder;
+import seedfinder.structure.StrongholdFinder.Stronghold;
+import seedfinder.structure.TempleFinder;
+import seedfinder.structure.VillageFinder;
+import seedfinder.util.ChunkPos;
+import seedfinder.util.JavaRandom;
+import seedfinder.util.Storage3D;
+import seedfinder.worldgen.WorldGen;
+
+/**
+ * The stronghold stages of the search: building the stronghold, counting the
+ * eyes in its portal and generating the loot in its chests. The eye counts
+ * which generate terrain look at a stronghold in a new seed each invocation,
+ * so that they don't reuse the chunks and cave starts cached for the last
+ * one, except where noted. The other stages don't cache anything, so they
+ * look at the same stronghold each time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrongholdBenchmark {
+
+	private static final long SEED = 123456789L;
+
+	private Random rand;
+	private Storage3D world;
+	private StrongholdFinder strongholdFinder;
+	private ChunkPos strongholdPos;
+
+	@Setup
+	public void setUp() {
+		rand = new JavaRandom();
+		world = new Storage3D(Blocks.AIR);
+		WorldGen.setWorldSeed(rand, SEED);
+		BiomeProvider.setWorldSeed(SEED);
+		MineshaftFinder.getInstance().reset();
+		VillageFinder.getInstance().reset();
+		strongholdFinder = StrongholdFinder.getInstance();
+		strongholdFinder.reset();
+		TempleFinder.getInstance().reset();
+
+		strongholdFinder.findFirstLayerPositions(rand, SEED);
+		strongholdPos = strongholdFinder.getStructurePositions().iterator().next();
+	}
+
+	@Benchmark
+	public Stronghold createStronghold() {
+		WorldGen.setMapGenSeedForChunk(rand, SEED, strongholdPos.getX(), strongholdPos.getZ());
+		return strongholdFinder.createStructure(rand, strongholdPos);
+	}
+
+	@Benchmark
+	public int countEyesInaccurate(FreshSeed fresh) {
+		return strongholdFinder.getNumEyes(world, rand, fresh.seed, fresh.strongholdPos, false);
+	}
+
+	@Benchmark
+	public int countEyesDryRun() {
+		return strongholdFinder.getDryRunNumEyes(rand, SEED, strongholdPos);
+	}
+
+	@Benchmark
+	public int countEyesAccurate(FreshSeed fresh) {
+		return strongholdFinder.getNumEyes(world, rand, fresh.seed, fresh.strongholdPos, true);
+	}
+
+	/**
+	 * The inaccurate count followed by the accurate one, as the search checks
+	 * a candidate. The accurate count finds the chunks it needs in the chunk
+	 * cache on purpose, as it does in the search.
+	 */
+	@Benchmark
+	public int countEyesBothPasses(FreshSeed fresh) {
+		return strongholdFinder.getNumEyes(world, rand, fresh.seed, fresh.strongholdPos, false)
+				+ strongholdFinder.getNumEyes(world, rand, fresh.seed, fresh.strongholdPos, true);
+	}
+
+	@Benchmark
+	public Object generateLoot() {
+		rand.setSeed(SEED);
+		return LootTables.STRONGHOLD_CORRIDOR.generate(rand, new LootContext());
+	}
+
+	/**
+	 * The first stronghold of a new seed, set up before each invocation
+	 */
+	@State(Scope.Thread)
+	public static class FreshSeed {
+		private final Random rand = new JavaRandom();
+		private long seed = SEED;
+		private ChunkPos strongholdPos;
+
+		@Setup(Level.Invocation)
+		public void nextSeed() {
+			seed++;
+			WorldGen.setWorldSeed(rand, seed);
+			BiomeProvider.setWorldSeed(seed);
+			MineshaftFinder.getInstance().reset();
+			VillageFinder.getInstance().reset();
+			StrongholdFinder.getInstance().reset();
+			TempleFinder.getInstance().reset();
+
+			StrongholdFinder.getInstance().findFirstLayerPositions(rand, seed);
+			strongholdPos = StrongholdFinder.getInstance().getStructurePositions().iterator().next();
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package seedfinder.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import seedfinder.Blocks;
+import seedfinder.biome.BiomeProvider;
+import seedfinder.structure.MineshaftFinder;
+import seedfinder.structure.StrongholdFinder;
+import seedfinder.structure.TempleFinder;
+import seedfinder.structure.VillageFinder;
+import seedfinder.util.JavaRandom;
+import seedfinder.util.Storage3D;
+import seedfinder.worldgen.CaveGen;
+import seedfinder.worldgen.ChunkPrimer;
+import seedfinder.worldgen.WorldGen;
+
+/**
+ * Terrain generation of a single chunk. Each invocation generates the chunk in
+ * a new seed, set up beforehand, so that nothing is left of the last one in
+ * the per-seed caches, such as the cave and ravine starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldGenBenchmark {
+
+	private static final long FIRST_SEED = 123456789L;
+	private static final int CHUNK_X = 100;
+	private static final int CHUNK_Z = -30;
+
+	private Random rand;
+	private Storage3D chunk;
+	private ChunkPrimer primer;
+	private long seed;
+
+	@Setup
+	public void setUp() {
+		rand = new JavaRandom();
+		chunk = new Storage3D(Blocks.AIR);
+		chunk.reallocate(CHUNK_X << 4, 0, CHUNK_Z << 4, (CHUNK_X << 4) + 15, 255, (CHUNK_Z << 4) + 15);
+		primer = new ChunkPrimer();
+		seed = FIRST_SEED;
+	}
+
+	@Setup(Level.Invocation)
+	public void nextSeed() {
+		seed++;
+		WorldGen.setWorldSeed(rand, seed);
+		BiomeProvider.setWorldSeed(seed);
+		MineshaftFinder.getInstance().reset();
+		VillageFinder.getInstance().reset();
+		StrongholdFinder.getInstance().reset();
+		TempleFinder.getInstance().reset();
+	}
+
+	/**
+	 * Terrain, caves, ravines and structure positions
+	 */
+	@Benchmark
+	public Storage3D createOverworld() {
+		WorldGen.createOverworld(rand, seed, CHUNK_X, CHUNK_Z, chunk);
+		return chunk;
+	}
+
+	/**
+	 * Cave carving on its own. The chunk is refilled with stone each time, so
+	 * that there is always something to carve.
+	 */
+	@Benchmark
+	public ChunkPrimer caveGen() {
+		primer.fill(Blocks.STONE);
+		CaveGen.generate(rand, seed, CHUNK_X, CHUNK_Z, primer);
+		return primer;
+	}
+
+}
@@ -2,17 +2,39 @@ package seedfinder;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
 
+import seedfinder.biome.BiomeDepth;
 import seedfinder.biome.BiomeProvider;
+import seedfinder.biome.BiomeTileCache;
 import seedfinder.loot.LootTables;
+import seedfinder.render.BiomeMapRenderer;
+import seedfinder.results.ResultFormat;
+import seedfinder.results.ResultSink;
+import seedfinder.results.ResultWriter;
+import seedfinder.results.SeedResult;
+import seedfinder.search.Checkpoint;
+import seedfinder.search.Coordinator;
+import seedfinder.search.SeedSearcher;
+import seedfinder.search.Worker;
+import seedfinder.stats.SearchStats;
+import seedfinder.stats.SearchStats.Stage;
 import seedfinder.structure.MineshaftFinder;
 import seedfinder.structure.NBTStructures;
 import seedfinder.structure.StrongholdFinder;
@@ -24,27 +46,215 @@ import seedfinder.task.GatherChestsTask;
 import seedfinder.task.Task;
 import seedfinder.util.BlockPos;
 import seedfinder.util.ChunkPos;
+import seedfinder.util.JavaRandom;
 import seedfinder.util.Storage3D;
 import seedfinder.worldgen.WorldGen;
 
 public class Main {
 
-	private static volatile long seed;
+	/**
+	 * The number of world seeds which share the same lower 48 bits, which is
+	 * all that java.util.Random takes from its seed
+	 */
+	private static final long SEEDS_PER_STRUCTURE_SEED = 1L << 16;
+	private static final long STRUCTURE_SEED_MASK = (1L << 48) - 1;
+
+	/**
+	 * The number of seeds in each work unit of a range search. Only whole work
+	 * units are saved in the checkpoint, so these are sized to be about a
+	 * minute's work for one thread, measured without a land prefilter: a world
+	 * seed takes about 27ms, and a structure seed, with its 65536 world seeds,
+	 * about 30s.
+	 */
+	private static final long WORLD_SEEDS_PER_WORK_UNIT = 2048;
+	private static final long STRUCTURE_SEEDS_PER_WORK_UNIT = 2;
+	private static final long CHECKPOINT_INTERVAL = 30000;
+	/**
+	 * The size of a new biome cache spill file, in bytes. Most filesystems
+	 * only store the parts which have been written to.
+	 */
+	private static final long BIOME_CACHE_SPILL_SIZE = 1L << 30;
+
 	private static int eyesThreshold;
 	private static int totalThreshold;
+	/**
+	 * The depth of the biome layers to check that a stronghold might be on
+	 * land at before searching a seed, or null to search every seed
+	 */
+	private static BiomeDepth landPrefilter;
+	/**
+	 * Where the strongholds found go. Workers send them to the coordinator
+	 * instead of writing them out.
+	 */
+	private static Consumer<SeedResult> resultHandler;
+	/**
+	 * Writes out the results queued so far, or null if they aren't queued
+	 */
+	private static ResultSink resultSink;
 
 	private static void printUsage() {
-		System.out.println("java -jar seed_finder.jar <start_seed> <eyes_threshold> [total_threshold]");
+		System.out.println("java -jar seed_finder.jar <start_seed> <eyes_threshold> [total_threshold] [threads]");
+		System.out.println(
+				"java -jar seed_finder.jar structure <start_structure_seed> <eyes_threshold> [total_threshold] [threads]");
+		System.out.println(
+				"java -jar seed_finder.jar range <world|structure> <start_seed> <end_seed> <checkpoint_file> <eyes_threshold> [total_threshold] [threads]");
+		System.out.println(
+				"java -jar seed_finder.jar coordinator <port> <world|structure> <start_seed> <end_seed> <checkpoint_file> <eyes_threshold> [total_threshold]");
+		System.out.println("java -jar seed_finder.jar worker <host> <port> [threads]");
 		System.out.println("java -jar seed_finder.jar seed <seed>");
 		System.out.println("java -jar seed_finder.jar legacy <old_output_file> <eyes_threshold>");
+		System.out.println(
+				"java -jar seed_finder.jar map <seed> <from_x> <from_z> <to_x> <to_z> <output_png> [threads]");
+		System.out.println("Options:");
+		System.out.println("  --format <text|jsonl|csv|binary>  the format to write results in");
+		System.out.println("  --output <file>                   append results to a file instead of printing them");
+		System.out.println("  --stats <seconds>                 report throughput and stage timings at this interval");
+		System.out.println("  --stats-file <file>               append the reports to a file instead of stderr");
+		System.out.println("  --biome-cache <megabytes>         cache this many megabytes of biomes, which helps when");
+		System.out.println("                                    looking at the same seeds again");
+		System.out.println("  --biome-cache-file <file>         also keep the cached biomes in this file between runs");
+		System.out.println("  --chunk-cache <megabytes>         keep this many megabytes of generated chunks per thread");
+		System.out.println("                                    while checking a seed's eyes and chests, 0 to disable");
+		System.out.println("  --world-storage <flat|sectioned>  store generated worlds in flat arrays (the default), or");
+		System.out.println("                                    in palette compressed sections, which use less memory");
+		System.out.println("  --land-prefilter <land_and_ocean|biomes|generation>");
+		System.out.println("                                    skip seeds whose first strongholds can't be on land,");
+		System.out.println("                                    judged by the biome layers down to this depth");
 	}
 
 	public static void main(String[] args) {
+		// Options can go anywhere
+		List<String> argList = new ArrayList<>(Arrays.asList(args));
+		ResultFormat format = ResultFormat.TEXT;
+		File outputFile = null;
+		long statsInterval = 0;
+		File statsFile = null;
+		long biomeCacheSize = 0;
+		File biomeCacheFile = null;
+		for (int i = 0; i < argList.size(); i++) {
+			// Every option takes a value
+			if (argList.get(i).startsWith("--") && i == argList.size() - 1) {
+				printUsage();
+				return;
+			}
+			if ("--format".equals(argList.get(i))) {
+				argList.remove(i);
+				format = ResultFormat.byName(argList.remove(i));
+				if (format == null) {
+					printUsage();
+					return;
+				}
+				i--;
+			} else if ("--output".equals(argList.get(i))) {
+				argList.remove(i);
+				outputFile = new File(argList.remove(i));
+				i--;
+			} else if ("--stats".equals(argList.get(i))) {
+				argList.remove(i);
+				statsInterval = Long.parseLong(argList.remove(i)) * 1000;
+				i--;
+			} else if ("--stats-file".equals(argList.get(i))) {
+				argList.remove(i);
+				statsFile = new File(argList.remove(i));
+				i--;
+			} else if ("--biome-cache".equals(argList.get(i))) {
+				argList.remove(i);
+				biomeCacheSize = Long.parseLong(argList.remove(i)) << 20;
+				i--;
+			} else if ("--biome-cache-file".equals(argList.get(i))) {
+				argList.remove(i);
+				biomeCacheFile = new File(argList.remove(i));
+				i--;
+			} else if ("--chunk-cache".equals(argList.get(i))) {
+				argList.remove(i);
+				WorldGen.setChunkCacheSize(Long.parseLong(argList.remove(i)) << 20);
+				i--;
+			} else if ("--world-storage".equals(argList.get(i))) {
+				argList.remove(i);
+				String storage = argList.remove(i);
+				if ("sectioned".equalsIgnoreCase(storage)) {
+					WorldGen.setSectionedWorlds(true);
+				} else if (!"flat".equalsIgnoreCase(storage)) {
+					printUsage();
+					return;
+				}
+				i--;
+			} else if ("--land-prefilter".equals(argList.get(i))) {
+				argList.remove(i);
+				landPrefilter = BiomeDepth.byName(argList.remove(i));
+				if (landPrefilter == null) {
+					printUsage();
+					return;
+				}
+				i--;
+			}
+		}
+		args = argList.toArray(new String[argList.size()]);
+
 		if (args.length < 2) {
 			printUsage();
 			return;
 		}
 
+		if (statsInterval > 0) {
+			PrintStream statsOut = System.err;
+			if (statsFile != null) {
+				try {
+					statsOut = new PrintStream(new FileOutputStream(statsFile, true));
+				} catch (IOException e) {
+					System.err.println("Failed to open stats file");
+					e.printStackTrace();
+					return;
+				}
+			}
+			SearchStats.startReporting(statsInterval, statsOut);
+		}
+
+		if (biomeCacheSize > 0 || biomeCacheFile != null) {
+			BiomeTileCache biomeCache = new BiomeTileCache(biomeCacheSize);
+			if (biomeCacheFile != null) {
+				try {
+					biomeCache.openSpillFile(biomeCacheFile, BIOME_CACHE_SPILL_SIZE);
+				} catch (IOException e) {
+					System.err.println("Failed to open biome cache file");
+					e.printStackTrace();
+					return;
+				}
+			}
+			BiomeProvider.setTileCache(biomeCache);
+		}
+
+		// Maps only need the biomes, so don't need the results or structures
+		if ("map".equalsIgnoreCase(args[0])) {
+			if (args.length < 7) {
+				printUsage();
+				return;
+			}
+			long seed = Long.parseLong(args[1]);
+			int threads = args.length <= 7 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[7]);
+			BiomeMapRenderer renderer = new BiomeMapRenderer(seed, Integer.parseInt(args[2]),
+					Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+			renderer.addStructureMarkers();
+			try {
+				renderer.render(new FileOutputStream(args[6]), threads);
+			} catch (IOException e) {
+				System.err.println("Failed to render map");
+				e.printStackTrace();
+			}
+			return;
+		}
+
+		// Workers send their results to the coordinator instead
+		if (!"worker".equalsIgnoreCase(args[0])) {
+			try {
+				openResultSink(format, outputFile);
+			} catch (IOException e) {
+				System.err.println("Failed to open output file");
+				e.printStackTrace();
+				return;
+			}
+		}
+
 		try {
 			NBTStructures.load();
 		} catch (IOException e) {
@@ -54,11 +264,11 @@ public class Main {
 		}
 
 		if ("seed".equalsIgnoreCase(args[0])) {
-			seed = Long.parseLong(args[1]);
+			long seed = Long.parseLong(args[1]);
 			// so we print all strongholds
 			eyesThreshold = 0;
 			totalThreshold = 0;
-			printSeedInfo(new Random(), new Storage3D(Blocks.AIR));
+			printSeedInfo(seed, new JavaRandom(), WorldGen.createWorld());
 		} else if ("legacy".equalsIgnoreCase(args[0])) {
 			if (args.length < 3) {
 				printUsage();
@@ -72,18 +282,168 @@ public class Main {
 				System.err.println("An I/O error occurred when reading from that file");
 				e.printStackTrace();
 			}
+		} else if ("structure".equalsIgnoreCase(args[0])) {
+			if (args.length < 3) {
+				printUsage();
+				return;
+			}
+			long structureSeed = Long.parseLong(args[1]) & STRUCTURE_SEED_MASK;
+			eyesThreshold = Integer.parseInt(args[2]);
+			totalThreshold = args.length == 3 ? eyesThreshold : Integer.parseInt(args[3]);
+			int threads = args.length <= 4 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[4]);
+			findSeeds(structureSeed, threads, Main::searchStructureSeed);
+		} else if ("range".equalsIgnoreCase(args[0])) {
+			if (args.length < 6) {
+				printUsage();
+				return;
+			}
+			Checkpoint checkpoint = openRangeCheckpoint(args, 1);
+			if (checkpoint == null) {
+				return;
+			}
+			int threads = args.length <= 7 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[7]);
+			findSeedsInRange(checkpoint, threads, setUpSearch(checkpoint.getSearch()));
+		} else if ("coordinator".equalsIgnoreCase(args[0])) {
+			if (args.length < 7) {
+				printUsage();
+				return;
+			}
+			int port = Integer.parseInt(args[1]);
+			Checkpoint checkpoint = openRangeCheckpoint(args, 2);
+			if (checkpoint == null) {
+				return;
+			}
+			try {
+				new Coordinator(checkpoint, resultHandler).run(port);
+			} catch (IOException e) {
+				System.err.println("An I/O error occurred in the coordinator");
+				e.printStackTrace();
+				return;
+			} catch (InterruptedException e) {
+				return;
+			}
+			System.err.println("Finished searching range");
+		} else if ("worker".equalsIgnoreCase(args[0])) {
+			if (args.length < 3) {
+				printUsage();
+				return;
+			}
+			int threads = args.length <= 3 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[3]);
+			resultHandler = Worker::sendResult;
+			try {
+				Worker.run(args[1], Integer.parseInt(args[2]), threads, Main::setUpSearch);
+			} catch (IOException e) {
+				System.err.println("Failed to connect to coordinator");
+				e.printStackTrace();
+			} catch (InterruptedException e) {
+			}
 		} else {
-			seed = Long.parseLong(args[0]);
+			long seed = Long.parseLong(args[0]);
 			eyesThreshold = Integer.parseInt(args[1]);
 			totalThreshold = args.length == 2 ? eyesThreshold : Integer.parseInt(args[2]);
-			findSeeds();
+			int threads = args.length <= 3 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[3]);
+			findSeeds(seed, threads, Main::searchSeed);
 		}
 	}
 
+	/**
+	 * Sets up the results to be written in the given format, to the given file
+	 * or to stdout if it is null. The queued results are written out when the
+	 * JVM exits.
+	 */
+	private static void openResultSink(ResultFormat format, File outputFile) throws IOException {
+		OutputStream out;
+		boolean newOutput;
+		if (outputFile == null) {
+			out = System.out;
+			newOutput = true;
+		} else {
+			newOutput = !outputFile.exists() || outputFile.length() == 0;
+			out = new FileOutputStream(outputFile, true);
+		}
+
+		ResultWriter writer = format.createWriter(out);
+		if (newOutput) {
+			writer.writeHeader();
+		}
+		ResultSink sink = new ResultSink(writer);
+		resultHandler = sink::add;
+		resultSink = sink;
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			sink.close();
+			if (out != System.out) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			}
+		}, "Result sink closer"));
+	}
+
+	/**
+	 * Reads the arguments of a range search, starting at the given index:
+	 * <tt>&lt;world|structure&gt; &lt;start_seed&gt; &lt;end_seed&gt;
+	 * &lt;checkpoint_file&gt; &lt;eyes_threshold&gt; [total_threshold]</tt>,
+	 * and opens its checkpoint. Returns null if it couldn't be opened.
+	 */
+	private static Checkpoint openRangeCheckpoint(String[] args, int index) {
+		String mode = args[index].toLowerCase();
+		boolean structure = "structure".equals(mode);
+		if (!structure && !"world".equals(mode)) {
+			printUsage();
+			return null;
+		}
+		long startSeed = Long.parseLong(args[index + 1]);
+		long endSeed = Long.parseLong(args[index + 2]);
+		if (structure && (startSeed < 0 || endSeed > STRUCTURE_SEED_MASK + 1)) {
+			System.err.println("Structure seeds must be between 0 and 2^48");
+			return null;
+		}
+		int eyes = Integer.parseInt(args[index + 4]);
+		int total = args.length <= index + 5 ? eyes : Integer.parseInt(args[index + 5]);
+
+		// The thresholds and prefilter are part of the search, as resuming
+		// with different ones would leave gaps in the results
+		String search = mode + " " + eyes + " " + total;
+		if (landPrefilter != null) {
+			search += " " + landPrefilter.name().toLowerCase();
+		}
+		Checkpoint checkpoint;
+		try {
+			checkpoint = Checkpoint.open(new File(args[index + 3]), search, startSeed, endSeed,
+					structure ? STRUCTURE_SEEDS_PER_WORK_UNIT : WORLD_SEEDS_PER_WORK_UNIT);
+		} catch (IOException e) {
+			System.err.println("Failed to read checkpoint file");
+			e.printStackTrace();
+			return null;
+		}
+
+		// Units are only saved as completed once their results are written,
+		// so that none are lost if we are killed before the sink catches up
+		if (resultSink != null) {
+			checkpoint.setBeforeSave(resultSink::flush);
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Sets the thresholds from a search description created by
+	 * {@link #openRangeCheckpoint(String[], int)}, and returns the searcher for
+	 * its mode
+	 */
+	private static SeedSearcher setUpSearch(String search) {
+		String[] parts = search.split(" ");
+		eyesThreshold = Integer.parseInt(parts[1]);
+		totalThreshold = Integer.parseInt(parts[2]);
+		landPrefilter = parts.length > 3 ? BiomeDepth.byName(parts[3]) : null;
+		return "structure".equals(parts[0]) ? Main::searchStructureSeed : Main::searchSeed;
+	}
+
 	private static void translateLegacy(File file) throws IOException {
 		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-			Random rand = new Random();
-			Storage3D world = new Storage3D(Blocks.AIR);
+			Random rand = new JavaRandom();
+			Storage3D world = WorldGen.createWorld();
 			String line;
 
 			while ((line = reader.readLine()) != null) {
@@ -102,6 +462,7 @@ public class Main {
 					continue;
 				}
 				line = line.substring(6);
+				long seed;
 				try {
 					seed = Long.parseLong(line);
 				} catch (NumberFormatException e) {
@@ -110,33 +471,42 @@ public class Main {
 					continue;
 				}
 
-				printSeedInfo(rand, world);
+				printSeedInfo(seed, rand, world);
 			}
 		}
 	}
 
-	private static void printSeedInfo(Random random, Storage3D world) {
+	private static void printSeedInfo(long seed, Random random, Storage3D world) {
 		// Initialize things to the seed
 		WorldGen.setWorldSeed(random, seed);
 		BiomeProvider.setWorldSeed(seed);
-		MineshaftFinder.INSTANCE.reset();
-		VillageFinder.INSTANCE.reset();
-		StrongholdFinder.INSTANCE.reset();
-		TempleFinder.INSTANCE.reset();
+		MineshaftFinder.getInstance().reset();
+		VillageFinder.getInstance().reset();
+		StrongholdFinder strongholdFinder = StrongholdFinder.getInstance();
+		strongholdFinder.reset();
+		TempleFinder.getInstance().reset();
 
 		// Get stronghold positions
-		StrongholdFinder.INSTANCE.findFirstLayerPositions(random, seed);
+		long startTime = SearchStats.startStage();
+		strongholdFinder.findFirstLayerPositions(random, seed);
+		SearchStats.endStage(Stage.FIRST_LAYER, startTime, true);
 
-		for (ChunkPos strongholdPos : new HashSet<>(StrongholdFinder.INSTANCE.getStructurePositions())) {
-			int eyes = StrongholdFinder.INSTANCE.getNumEyes(world, random, seed, strongholdPos, false);
+		for (ChunkPos strongholdPos : new HashSet<>(strongholdFinder.getStructurePositions())) {
+			startTime = SearchStats.startStage();
+			int eyes = strongholdFinder.getNumEyes(world, random, seed, strongholdPos, false);
+			SearchStats.endStage(Stage.INACCURATE_EYES, startTime, eyes >= eyesThreshold);
+			SearchStats.addEyeCount(eyes);
 
 			if (eyes >= eyesThreshold) {
 				// Check for false positive
-				eyes = StrongholdFinder.INSTANCE.getNumEyes(world, random, seed, strongholdPos, true);
+				startTime = SearchStats.startStage();
+				eyes = strongholdFinder.getNumEyes(world, random, seed, strongholdPos, true);
+				SearchStats.endStage(Stage.ACCURATE_EYES, startTime, eyes >= eyesThreshold);
 
 				if (eyes >= eyesThreshold) {
+					startTime = SearchStats.startStage();
 					WorldGen.setMapGenSeedForChunk(random, seed, strongholdPos.getX(), strongholdPos.getZ());
-					Stronghold stronghold = (Stronghold) StrongholdFinder.INSTANCE.getStructure(random, strongholdPos);
+					Stronghold stronghold = (Stronghold) strongholdFinder.getStructure(random, strongholdPos);
 
 					// Find number of pearls in chests
 					GatherChestsTask task = new GatherChestsTask();
@@ -146,7 +516,9 @@ public class Main {
 							.map(it -> (StrongholdGen.ChestCorridor) it).map(StrongholdGen.ChestCorridor::getChestPos)
 							.forEach(pos -> WorldGen.createAndPopulatePosOverworld(world, random, seed, pos.getX(),
 									pos.getZ()));
+					SearchStats.endStage(Stage.CHEST_POPULATION, startTime, true);
 
+					startTime = SearchStats.startStage();
 					Map<BlockPos, List<ItemStack>> chestContents = task.generateChests(LootTables.STRONGHOLD_CORRIDOR);
 					int pearls = 0;
 					Set<BlockPos> pearlChestPositions = new HashSet<>();
@@ -159,27 +531,103 @@ public class Main {
 							pearlChestPositions.add(chest.getKey());
 						}
 					}
+					SearchStats.endStage(Stage.CHEST_LOOT, startTime, eyes + pearls >= totalThreshold);
 					if (eyes + pearls >= totalThreshold) {
-						// Print info about stronghold
-						System.out.println("-----------------------------");
-						System.out.println("Seed: " + seed);
-						System.out.println("Total: " + (eyes + pearls));
-						System.out.println("Eyes: " + eyes);
-						System.out.println("   In portal at:");
-						System.out.println(
-								"      " + ((Stronghold) StrongholdFinder.INSTANCE.getStructure(random, strongholdPos))
-										.getPortalRoom().getPortalPos());
-						System.out.println("Pearls: " + pearls);
-						System.out.println("   In chest(s) at:");
-						pearlChestPositions.forEach(pos -> System.out.println("      " + pos));
+						resultHandler.accept(new SeedResult(seed, eyes, pearls,
+								stronghold.getPortalRoom().getPortalPos(), new ArrayList<>(pearlChestPositions)));
 					}
 				}
 			}
 		}
 	}
 
-	private static void findSeeds() {
-		final long initialSeed = seed;
+	private static void searchSeed(long seed, Random random, Storage3D world) {
+		SearchStats.addSeed();
+		if (landPrefilter != null) {
+			BiomeProvider.setWorldSeed(seed);
+			if (!passesLandPrefilter(seed, random)) {
+				return;
+			}
+		}
+		printSeedInfo(seed, random, world);
+	}
+
+	/**
+	 * Checks whether any of the first strongholds of the seed might be on
+	 * land. The biomes must already be set up for the seed.
+	 */
+	private static boolean passesLandPrefilter(long seed, Random random) {
+		long startTime = SearchStats.startStage();
+		boolean pass = StrongholdFinder.getInstance().mayHaveFirstLayerOnLand(random, seed, landPrefilter);
+		SearchStats.endStage(Stage.LAND_PREFILTER, startTime, pass);
+		return pass;
+	}
+
+	/**
+	 * Searches all the world seeds sharing the given lower 48 bits. Stronghold
+	 * layouts and the population RNG only depend on these bits, so the eyes
+	 * are only counted once per stronghold chunk. The upper 16 bits are then
+	 * swept to see where the biomes move the strongholds to.
+	 */
+	private static void searchStructureSeed(long structureSeed, Random random, Storage3D world) {
+		StrongholdFinder strongholdFinder = StrongholdFinder.getInstance();
+		Map<ChunkPos, Integer> eyesByChunk = new HashMap<>();
+
+		for (long upperBits = 0; upperBits < SEEDS_PER_STRUCTURE_SEED; upperBits++) {
+			long seed = upperBits << 48 | structureSeed;
+			SearchStats.addSeed();
+
+			// The noise generators are seeded through java.util.Random, so
+			// they only need to be initialized once
+			if (upperBits == 0) {
+				WorldGen.setWorldSeed(random, seed);
+			}
+			BiomeProvider.setWorldSeed(seed);
+			if (landPrefilter != null && !passesLandPrefilter(seed, random)) {
+				continue;
+			}
+			MineshaftFinder.getInstance().reset();
+			VillageFinder.getInstance().reset();
+			strongholdFinder.reset();
+			TempleFinder.getInstance().reset();
+
+			long startTime = SearchStats.startStage();
+			strongholdFinder.findFirstLayerPositions(random, seed);
+			SearchStats.endStage(Stage.FIRST_LAYER, startTime, true);
+
+			boolean candidate = false;
+			for (ChunkPos strongholdPos : new HashSet<>(strongholdFinder.getStructurePositions())) {
+				// The dry run count doesn't generate terrain, so it is the same
+				// for all the upper bits. Any candidate is checked again
+				// properly below.
+				Integer eyes = eyesByChunk.get(strongholdPos);
+				if (eyes == null) {
+					startTime = SearchStats.startStage();
+					eyes = strongholdFinder.getDryRunNumEyes(random, seed, strongholdPos);
+					SearchStats.endStage(Stage.INACCURATE_EYES, startTime, eyes >= eyesThreshold);
+					SearchStats.addEyeCount(eyes);
+					eyesByChunk.put(strongholdPos, eyes);
+				}
+				if (eyes >= eyesThreshold) {
+					candidate = true;
+				}
+			}
+
+			if (candidate) {
+				printSeedInfo(seed, random, world);
+			}
+		}
+	}
+
+	private static void findSeeds(long initialSeed, int threadCount, SeedSearcher searcher) {
+		AtomicLong nextSeed = new AtomicLong(initialSeed);
+		// The seed each thread is working on. Every seed below the lowest of
+		// these has been fully searched.
+		AtomicLongArray currentSeeds = new AtomicLongArray(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			currentSeeds.set(i, initialSeed);
+		}
+
 		// Allow user to stop seed finder at any time
 		new Thread(() -> {
 			Scanner scanner = new Scanner(System.in);
@@ -191,20 +639,118 @@ public class Main {
 			}
 			scanner.close();
 
-			System.out.println("Current seed searching: " + seed);
-			System.out.println("Number of seeds searched: " + (seed - initialSeed));
-			System.out.println("Eyes threshold: " + eyesThreshold);
-			System.out.println("Total threshold: " + totalThreshold);
+			long seed = Long.MAX_VALUE;
+			for (int i = 0; i < threadCount; i++) {
+				seed = Math.min(seed, currentSeeds.get(i));
+			}
+
+			synchronized (System.err) {
+				System.err.println("Current seed searching: " + seed);
+				System.err.println("Number of seeds searched: " + (seed - initialSeed));
+				System.err.println("Eyes threshold: " + eyesThreshold);
+				System.err.println("Total threshold: " + totalThreshold);
+			}
 
 			System.exit(0);
 		}).start();
 
-		Random random = new Random();
-		Storage3D world = new Storage3D(Blocks.AIR);
+		// Each thread has its own generation context (see WorldGen,
+		// BiomeProvider etc.), so they can all search independently
+		for (int i = 0; i < threadCount; i++) {
+			final int threadIndex = i;
+			new Thread(() -> {
+				Random random = new JavaRandom();
+				Storage3D world = WorldGen.createWorld();
+
+				while (true) {
+					long seed = nextSeed.getAndIncrement();
+					currentSeeds.set(threadIndex, seed);
+					searcher.search(seed, random, world);
+				}
+			}, "Seed finder " + i).start();
+		}
+	}
+
+	/**
+	 * Searches the seed range of the given checkpoint, skipping work units
+	 * which have already been searched. Progress is saved to the checkpoint
+	 * periodically, and when the search is stopped or finished.
+	 */
+	private static void findSeedsInRange(Checkpoint checkpoint, int threadCount, SeedSearcher searcher) {
+		int completedUnits = checkpoint.getCompletedUnitCount();
+		if (completedUnits != 0) {
+			System.err.println("Resuming search, " + completedUnits + "/" + checkpoint.getUnitCount()
+					+ " work units already searched");
+		}
+
+		Thread saveThread = checkpoint.startAutoSave(CHECKPOINT_INTERVAL);
+
+		// Allow user to stop seed finder at any time. Units in progress will
+		// be searched again when resuming.
+		Thread stopThread = new Thread(() -> {
+			Scanner scanner = new Scanner(System.in);
+			while (!scanner.nextLine().equalsIgnoreCase("stop")) {
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException e) {
+				}
+			}
+			scanner.close();
+
+			saveCheckpoint(checkpoint);
+			synchronized (System.err) {
+				System.err.println("Work units searched: " + checkpoint.getCompletedUnitCount() + "/"
+						+ checkpoint.getUnitCount());
+				System.err.println("Eyes threshold: " + eyesThreshold);
+				System.err.println("Total threshold: " + totalThreshold);
+			}
+
+			System.exit(0);
+		});
+		stopThread.setDaemon(true);
+		stopThread.start();
+
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread(() -> {
+				Random random = new JavaRandom();
+				Storage3D world = WorldGen.createWorld();
+
+				int unit;
+				while ((unit = checkpoint.claimUnit()) != -1) {
+					long endSeed = checkpoint.getUnitEnd(unit);
+					for (long seed = checkpoint.getUnitStart(unit); seed < endSeed; seed++) {
+						searcher.search(seed, random, world);
+					}
+					checkpoint.completeUnit(unit);
+				}
+			}, "Seed finder " + i);
+			thread.start();
+			threads.add(thread);
+		}
 
-		while (true) {
-			printSeedInfo(random, world);
-			seed++;
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		saveThread.interrupt();
+		saveCheckpoint(checkpoint);
+
+		synchronized (System.err) {
+			System.err.println("Finished searching range");
+		}
+	}
+
+	private static void saveCheckpoint(Checkpoint checkpoint) {
+		try {
+			checkpoint.saveIfDirty();
+		} catch (IOException e) {
+			System.err.println("Failed to save checkpoint");
+			e.printStackTrace();
 		}
 	}
 
@@ -0,0 +1,57 @@
+package seedfinder.biome;
+
+/**
+ * How far down the biome layer stack to generate. The deeper layers are more
+ * accurate, but each one costs more than all the layers above it, so filters
+ * which only need to know roughly where the land is can stop early.
+ */
+public enum BiomeDepth {
+	/**
+	 * Land and ocean, after deep ocean has been added. Land is a climate (1 to
+	 * 4, with special variants in bits 8 to 11) or mushroom island, and ocean
+	 * is ocean or deep ocean. One cell per 256x256 blocks.
+	 */
+	LAND_AND_OCEAN(8),
+	/**
+	 * The base biomes, before hills, shores and rivers. One cell per 256x256
+	 * blocks.
+	 */
+	BIOMES(8),
+	/**
+	 * The biomes used for terrain and structure placement. One cell per 4x4
+	 * blocks.
+	 */
+	GENERATION(2),
+	/**
+	 * The final biome of each block.
+	 */
+	BLOCKS(0);
+
+	private final int scaleShift;
+
+	private BiomeDepth(int scaleShift) {
+		this.scaleShift = scaleShift;
+	}
+
+	/**
+	 * Gets the number of bits a block coordinate is shifted right by to get a
+	 * cell coordinate at this depth
+	 */
+	public int getScaleShift() {
+		return scaleShift;
+	}
+
+	/**
+	 * Gets the depth with the given name, ignoring case, or null if there is
+	 * none
+	 */
+	public static BiomeDepth byName(String name) {
+		for (BiomeDepth depth : values()) {
+			if (depth.name().equalsIgnoreCase(name)) {
+				return depth;
+			}
+		}
+		return null;
+	}
+
+}
@@ -1,17 +1,50 @@
 package seedfinder.biome;
 
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Random;
-import java.util.Set;
+import java.util.function.IntPredicate;
 
 import seedfinder.util.BlockPos;
 import seedfinder.util.IntCache;
 
 public class BiomeProvider {
 
-	private static GenLayer biomeGenerator = GenLayer.initializeBiomeGenerator();
-	private static GenLayer finalBiomeGenerator = new GenLayerVoronoiZoom(10, biomeGenerator);
+	/**
+	 * GenLayers hold per-seed and per-chunk state, so each thread gets its own
+	 * layer stack
+	 */
+	private static final ThreadLocal<BiomeProvider> CONTEXT = ThreadLocal.withInitial(BiomeProvider::new);
+
+	/**
+	 * The number of rows generated at once by
+	 * {@link #anyCellMatches(BiomeDepth, int, int, int, int, IntPredicate)}.
+	 * Each strip needs a border from the layers above it, so smaller strips
+	 * waste more work when nothing matches.
+	 */
+	private static final int STRIP_HEIGHT = 4;
+
+	/**
+	 * The largest area which is generated on its own, rather than as tiles, if
+	 * its tiles aren't cached
+	 */
+	private static final int MAX_UNTILED_AREA = BiomeTileCache.TILE_SIZE * BiomeTileCache.TILE_SIZE / 16;
+
+	/**
+	 * The cache which {@link #getBiomes(int[], int, int, int, int)} and
+	 * {@link #getBiomesForGeneration(int[], int, int, int, int)} go through,
+	 * or null to always generate the biomes
+	 */
+	private static volatile BiomeTileCache tileCache;
+
+	private final Map<BiomeDepth, GenLayer> layersByDepth = new EnumMap<>(BiomeDepth.class);
+	private final GenLayer biomeGenerator = GenLayer.initializeBiomeGenerator(layersByDepth);
+	private final GenLayer finalBiomeGenerator = new GenLayerVoronoiZoom(10, biomeGenerator);
+	private long worldSeed;
 
 	private BiomeProvider() {
+		layersByDepth.put(BiomeDepth.BLOCKS, finalBiomeGenerator);
 	}
 
 	public static int[] getBiomes(int[] biomes, int x, int z, int width, int height) {
@@ -21,7 +54,13 @@ public class BiomeProvider {
 			biomes = new int[width * height];
 		}
 
-		int[] values = finalBiomeGenerator.getValues(x, z, width, height);
+		BiomeTileCache tileCache = BiomeProvider.tileCache;
+		if (tileCache != null) {
+			CONTEXT.get().getCachedValues(tileCache, BiomeDepth.BLOCKS, biomes, x, z, width, height);
+			return biomes;
+		}
+
+		int[] values = CONTEXT.get().finalBiomeGenerator.getValues(x, z, width, height);
 		System.arraycopy(values, 0, biomes, 0, width * height);
 
 		return biomes;
@@ -34,13 +73,59 @@ public class BiomeProvider {
 			biomes = new int[width * height];
 		}
 
-		int[] values = biomeGenerator.getValues(x, z, width, height);
+		BiomeTileCache tileCache = BiomeProvider.tileCache;
+		if (tileCache != null) {
+			CONTEXT.get().getCachedValues(tileCache, BiomeDepth.GENERATION, biomes, x, z, width, height);
+			return biomes;
+		}
+
+		int[] values = CONTEXT.get().biomeGenerator.getValues(x, z, width, height);
 		System.arraycopy(values, 0, biomes, 0, width * height);
 
 		return biomes;
 	}
 
-	public static BlockPos findBiomePosition(int x, int z, int range, Set<Integer> allowedBiomes, Random rand) {
+	/**
+	 * Fills in the given area from the tiles of the cache, generating those
+	 * which aren't cached yet. Areas much smaller than a tile, such as single
+	 * blocks, are cheaper to generate on their own than as a whole tile, so
+	 * they only use tiles which are already cached.
+	 */
+	private void getCachedValues(BiomeTileCache tileCache, BiomeDepth depth, int[] values, int x, int z, int width,
+			int height) {
+		final int tileSize = BiomeTileCache.TILE_SIZE;
+		GenLayer layer = layersByDepth.get(depth);
+		boolean smallArea = width * height <= MAX_UNTILED_AREA;
+
+		for (int tileZ = Math.floorDiv(z, tileSize); tileZ <= Math.floorDiv(z + height - 1, tileSize); tileZ++) {
+			for (int tileX = Math.floorDiv(x, tileSize); tileX <= Math.floorDiv(x + width - 1, tileSize); tileX++) {
+				int[] tile = tileCache.get(worldSeed, depth, tileX, tileZ);
+				if (tile == null && smallArea) {
+					IntCache.free();
+					System.arraycopy(layer.getValues(x, z, width, height), 0, values, 0, width * height);
+					return;
+				}
+				if (tile == null) {
+					IntCache.free();
+					tile = Arrays.copyOf(layer.getValues(tileX * tileSize, tileZ * tileSize, tileSize, tileSize),
+							tileSize * tileSize);
+					tileCache.put(worldSeed, depth, tileX, tileZ, tile);
+				}
+
+				// Copy the part of the tile in the area
+				int startX = Math.max(x, tileX * tileSize);
+				int startZ = Math.max(z, tileZ * tileSize);
+				int endX = Math.min(x + width, (tileX + 1) * tileSize);
+				int endZ = Math.min(z + height, (tileZ + 1) * tileSize);
+				for (int cellZ = startZ; cellZ < endZ; cellZ++) {
+					System.arraycopy(tile, (cellZ - tileZ * tileSize) * tileSize + startX - tileX * tileSize, values,
+							(cellZ - z) * width + startX - x, endX - startX);
+				}
+			}
+		}
+	}
+
+	public static BlockPos findBiomePosition(int x, int z, int range, BiomeSet allowedBiomes, Random rand) {
 		IntCache.free();
 
 		int genStartX = x - range >> 2;
@@ -49,47 +134,76 @@ public class BiomeProvider {
 		int genEndZ = z + range >> 2;
 		int genWidth = getEndX - genStartX + 1;
 		int genHeight = genEndZ - genStartZ + 1;
-		int[] values = biomeGenerator.getValues(genStartX, genStartZ, genWidth, genHeight);
+		int[] values = CONTEXT.get().biomeGenerator.getValues(genStartX, genStartZ, genWidth, genHeight);
 
-		BlockPos pos = null;
+		// Every allowed cell after the first one draws from rand, so the whole
+		// area has to be scanned to leave rand in the vanilla state
+		int posX = 0, posZ = 0;
 		int rarity = 0;
 
-		for (int index = 0; index < genWidth * genHeight; index++) {
-			int posX = genStartX + index % genWidth << 2;
-			int posZ = genStartZ + index / genWidth << 2;
-
-			if (allowedBiomes.contains(values[index]) && (pos == null || rand.nextInt(rarity + 1) == 0)) {
-				pos = new BlockPos(posX, 0, posZ);
-				rarity++;
+		int index = 0;
+		for (int dz = 0; dz < genHeight; dz++) {
+			for (int dx = 0; dx < genWidth; dx++, index++) {
+				if (allowedBiomes.contains(values[index]) && (rarity == 0 || rand.nextInt(rarity + 1) == 0)) {
+					posX = genStartX + dx << 2;
+					posZ = genStartZ + dz << 2;
+					rarity++;
+				}
 			}
 		}
 
-		return pos;
+		return rarity == 0 ? null : new BlockPos(posX, 0, posZ);
 	}
 
-	public static boolean areBiomesViable(int x, int z, int radius, Set<Integer> allowed) {
-		IntCache.free();
+	public static boolean areBiomesViable(int x, int z, int radius, BiomeSet allowed) {
+		return !anyCellMatches(BiomeDepth.GENERATION, x - radius, z - radius, x + radius, z + radius,
+				biome -> !allowed.contains(biome));
+	}
 
-		int genStartX = x - radius >> 2;
-		int genStartZ = z - radius >> 2;
-		int genEndX = x + radius >> 2;
-		int genEndZ = z + radius >> 2;
+	/**
+	 * Returns whether any cell at the given depth which overlaps the given
+	 * area of blocks matches the predicate. The cells are generated a few rows
+	 * at a time, so that we can stop at the first one which matches.
+	 */
+	public static boolean anyCellMatches(BiomeDepth depth, int minX, int minZ, int maxX, int maxZ,
+			IntPredicate predicate) {
+		int shift = depth.getScaleShift();
+		int genStartX = minX >> shift;
+		int genStartZ = minZ >> shift;
+		int genEndX = maxX >> shift;
+		int genEndZ = maxZ >> shift;
 		int genWidth = genEndX - genStartX + 1;
-		int genHeight = genEndZ - genStartZ + 1;
-		int[] values = biomeGenerator.getValues(genStartX, genStartZ, genWidth, genHeight);
+		GenLayer layer = CONTEXT.get().layersByDepth.get(depth);
 
-		for (int i = 0; i < genWidth * genHeight; i++) {
-			if (!allowed.contains(values[i])) {
-				return false;
+		for (int stripZ = genStartZ; stripZ <= genEndZ; stripZ += STRIP_HEIGHT) {
+			IntCache.free();
+			int stripHeight = Math.min(STRIP_HEIGHT, genEndZ - stripZ + 1);
+			int[] values = layer.getValues(genStartX, stripZ, genWidth, stripHeight);
+
+			for (int i = 0; i < genWidth * stripHeight; i++) {
+				if (predicate.test(values[i])) {
+					return true;
+				}
 			}
 		}
 
-		return true;
+		return false;
+	}
+
+	/**
+	 * Sets the cache which all threads get biomes through, or null to stop
+	 * caching them
+	 */
+	public static void setTileCache(BiomeTileCache cache) {
+		tileCache = cache;
 	}
 
 	public static void setWorldSeed(long seed) {
-		biomeGenerator.initWorldSeed(seed);
-		finalBiomeGenerator.initWorldSeed(seed);
+		BiomeProvider context = CONTEXT.get();
+		context.worldSeed = seed;
+		context.biomeGenerator.initWorldSeed(seed);
+		context.finalBiomeGenerator.initWorldSeed(seed);
+		context.finalBiomeGenerator.forgetValues();
 	}
 
 }
@@ -0,0 +1,28 @@
+package seedfinder.biome;
+
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable set of biome IDs. Checked once per cell in the biome searches,
+ * so it is a plain lookup table rather than a boxed set.
+ */
+public final class BiomeSet {
+
+	private final boolean[] biomes = new boolean[256];
+
+	BiomeSet(int[] biomes, IntPredicate filter) {
+		for (int biome : biomes) {
+			if (filter.test(biome)) {
+				this.biomes[biome] = true;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the given biome is in this set
+	 */
+	public boolean contains(int biome) {
+		return (biome & ~0xff) == 0 && biomes[biome];
+	}
+
+}
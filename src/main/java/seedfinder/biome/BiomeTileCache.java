@@ -0,0 +1,224 @@
+package seedfinder.biome;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Caches square tiles of biomes, keyed by world seed, depth and tile
+ * position, so that looking at the same seed again doesn't regenerate its
+ * biomes. The tiles are kept in memory up to a byte budget, least recently
+ * used first out. They can also be written through to a memory-mapped spill
+ * file, which keeps them between runs.
+ *
+ * <p>
+ * The spill file is direct-mapped: each tile can only be in the slot its key
+ * hashes to, and replaces whatever was there before. Each slot holds the key
+ * followed by the values of the tile.
+ */
+public class BiomeTileCache {
+
+	/**
+	 * The width and height of a tile, in cells of its depth
+	 */
+	public static final int TILE_SIZE = 64;
+	private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * 4;
+
+	private static final int MAGIC = 0x53464254; // "SFBT"
+	private static final int VERSION = 1;
+	private static final int FILE_HEADER_BYTES = 8;
+	// seed, depth + 1 (0 for an empty slot), tile x, tile z
+	private static final int SLOT_HEADER_BYTES = 20;
+	private static final int SLOT_BYTES = SLOT_HEADER_BYTES + TILE_BYTES;
+
+	private final long maxBytes;
+	private final LinkedHashMap<TileKey, int[]> tiles = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes = 0;
+
+	private MappedByteBuffer spill;
+	private int spillSlots;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	public BiomeTileCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Opens or creates the spill file. A new file is created with the given
+	 * size, in bytes. An existing file keeps its size.
+	 */
+	public synchronized void openSpillFile(File file, long size) throws IOException {
+		boolean newFile = !file.exists() || file.length() == 0;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			if (newFile) {
+				// A mapped buffer can't be larger than this
+				size = Math.min(size, Integer.MAX_VALUE);
+				size = FILE_HEADER_BYTES + (size - FILE_HEADER_BYTES) / SLOT_BYTES * SLOT_BYTES;
+				if (size <= FILE_HEADER_BYTES) {
+					throw new IllegalArgumentException("Spill file is too small for a tile");
+				}
+				raf.setLength(size);
+			} else {
+				size = raf.length();
+				if (size > Integer.MAX_VALUE || size < FILE_HEADER_BYTES) {
+					throw new IOException("Not a biome tile cache file: " + file);
+				}
+			}
+
+			// The mapping stays valid after the file is closed
+			spill = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+
+		if (newFile) {
+			spill.putInt(0, MAGIC);
+			spill.putInt(4, VERSION);
+		} else {
+			if (spill.getInt(0) != MAGIC) {
+				spill = null;
+				throw new IOException("Not a biome tile cache file: " + file);
+			}
+			int version = spill.getInt(4);
+			if (version != VERSION) {
+				spill = null;
+				throw new IOException("Unsupported biome tile cache version " + version);
+			}
+		}
+		spillSlots = (spill.capacity() - FILE_HEADER_BYTES) / SLOT_BYTES;
+	}
+
+	/**
+	 * Gets the given tile, or null if it isn't cached
+	 */
+	public synchronized int[] get(long seed, BiomeDepth depth, int tileX, int tileZ) {
+		TileKey key = new TileKey(seed, depth, tileX, tileZ);
+		int[] tile = tiles.get(key);
+		if (tile == null && spill != null) {
+			tile = readSpilledTile(key);
+			if (tile != null) {
+				addToMemory(key, tile);
+			}
+		}
+
+		if (tile == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return tile;
+	}
+
+	/**
+	 * Caches the given tile, which must have <tt>TILE_SIZE * TILE_SIZE</tt>
+	 * values in rows of <tt>TILE_SIZE</tt>, and must not be modified
+	 * afterwards
+	 */
+	public synchronized void put(long seed, BiomeDepth depth, int tileX, int tileZ, int[] tile) {
+		TileKey key = new TileKey(seed, depth, tileX, tileZ);
+		addToMemory(key, tile);
+		if (spill != null) {
+			writeSpilledTile(key, tile);
+		}
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	private void addToMemory(TileKey key, int[] tile) {
+		if (tiles.put(key, tile) == null) {
+			bytes += TILE_BYTES;
+		}
+
+		Iterator<int[]> eldest = tiles.values().iterator();
+		while (bytes > maxBytes && eldest.hasNext()) {
+			eldest.next();
+			eldest.remove();
+			bytes -= TILE_BYTES;
+		}
+	}
+
+	private int getSlotOffset(TileKey key) {
+		return FILE_HEADER_BYTES + Math.floorMod(key.hashCode(), spillSlots) * SLOT_BYTES;
+	}
+
+	private int[] readSpilledTile(TileKey key) {
+		int offset = getSlotOffset(key);
+		if (spill.getLong(offset) != key.seed || spill.getInt(offset + 8) != key.depth.ordinal() + 1
+				|| spill.getInt(offset + 12) != key.x || spill.getInt(offset + 16) != key.z) {
+			return null;
+		}
+
+		int[] tile = new int[TILE_SIZE * TILE_SIZE];
+		getSlotValues(offset).get(tile);
+		return tile;
+	}
+
+	private void writeSpilledTile(TileKey key, int[] tile) {
+		int offset = getSlotOffset(key);
+		// Empty the slot while it is being written, so that a half-written
+		// slot is never mistaken for a tile if we are killed
+		spill.putInt(offset + 8, 0);
+		getSlotValues(offset).put(tile);
+		spill.putLong(offset, key.seed);
+		spill.putInt(offset + 12, key.x);
+		spill.putInt(offset + 16, key.z);
+		spill.putInt(offset + 8, key.depth.ordinal() + 1);
+	}
+
+	private IntBuffer getSlotValues(int offset) {
+		ByteBuffer values = spill.duplicate();
+		values.position(offset + SLOT_HEADER_BYTES);
+		values.limit(offset + SLOT_BYTES);
+		return values.slice().asIntBuffer();
+	}
+
+	private static final class TileKey {
+		private final long seed;
+		private final BiomeDepth depth;
+		private final int x;
+		private final int z;
+
+		public TileKey(long seed, BiomeDepth depth, int x, int z) {
+			this.seed = seed;
+			this.depth = depth;
+			this.x = x;
+			this.z = z;
+		}
+
+		@Override
+		public int hashCode() {
+			// Not the enum's hash code, which changes between runs, as this
+			// picks the slot in the spill file
+			int hash = Long.hashCode(seed);
+			hash = 31 * hash + depth.ordinal();
+			hash = 31 * hash + x;
+			hash = 31 * hash + z;
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (other == this) {
+				return true;
+			}
+			if (!(other instanceof TileKey)) {
+				return false;
+			}
+			TileKey key = (TileKey) other;
+			return seed == key.seed && depth == key.depth && x == key.x && z == key.z;
+		}
+	}
+
+}
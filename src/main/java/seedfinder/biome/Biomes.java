@@ -1,15 +1,10 @@
 package seedfinder.biome;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Random;
-import java.util.Set;
 import java.util.function.IntPredicate;
-import java.util.stream.Collectors;
 
 import seedfinder.Blocks;
-import seedfinder.util.Storage3D;
+import seedfinder.worldgen.ChunkPrimer;
 import seedfinder.worldgen.NoiseGeneratorPerlin;
 import seedfinder.worldgen.WorldGen;
 
@@ -34,7 +29,7 @@ public class Biomes {
 		158,      160, 161, 162, 163, 164, 165, 166, 167,
 	};
 	// @formatter:on
-	public static final Set<Integer> ALL_BIOMES_SET = setOf(ALL_BIOMES);
+	public static final BiomeSet ALL_BIOMES_SET = setOf(ALL_BIOMES);
 
 	private static final float[] BASE_HEIGHTS = new float[256];
 	private static final float[] HEIGHT_VARS = new float[256];
@@ -216,29 +211,24 @@ public class Biomes {
 	/**
 	 * Creates a set containing the given biomes
 	 */
-	public static Set<Integer> setOf(int... biomes) {
-		return Collections.unmodifiableSet(Arrays.stream(biomes).boxed().collect(Collectors.toSet()));
+	public static BiomeSet setOf(int... biomes) {
+		return new BiomeSet(biomes, biome -> true);
 	}
 
 	/**
 	 * Creates a set containing all biomes except the given biomes
 	 */
-	public static Set<Integer> allBiomesExcept(int... biomes) {
-		Set<Integer> biomesSet = new HashSet<>(ALL_BIOMES_SET);
-		for (int biome : biomes) {
-			biomesSet.remove(biome);
-		}
-		return Collections.unmodifiableSet(biomesSet);
+	public static BiomeSet allBiomesExcept(int... biomes) {
+		BiomeSet except = setOf(biomes);
+		return new BiomeSet(ALL_BIOMES, biome -> !except.contains(biome));
 	}
 
 	/**
 	 * Creates a set containing all biomes which do not satisfy the given
 	 * predicate
 	 */
-	public static Set<Integer> allBiomesExcept(IntPredicate except) {
-		Set<Integer> biomesSet = new HashSet<>(ALL_BIOMES_SET);
-		biomesSet.removeIf(except::test);
-		return Collections.unmodifiableSet(biomesSet);
+	public static BiomeSet allBiomesExcept(IntPredicate except) {
+		return new BiomeSet(ALL_BIOMES, except.negate());
 	}
 
 	/**
@@ -426,7 +416,7 @@ public class Biomes {
 
 	private static final NoiseGeneratorPerlin GRASS_COLOR_NOISE = new NoiseGeneratorPerlin(new Random(2345), 1);
 
-	public static void genTerrainBlocks(Storage3D chunk, Random rand, int x, int z, double noiseVal, int biome) {
+	public static void genTerrainBlocks(ChunkPrimer chunk, Random rand, int x, int z, double noiseVal, int biome) {
 		// Note: these are swapped in vanilla as well
 		int zInChunk = x & 15;
 		int xInChunk = z & 15;
@@ -561,7 +551,7 @@ public class Biomes {
 		}
 	}
 
-	private static void genMesaTerrainBlocks(Storage3D chunk, Random rand, int x, int z, double noiseVal, int biome) {
+	private static void genMesaTerrainBlocks(ChunkPrimer chunk, Random rand, int x, int z, double noiseVal, int biome) {
 		boolean brycePillars = biome == (MUTATED | MESA);
 		boolean hasForest = (biome & ~MUTATED) == MESA_ROCK;
 
@@ -572,11 +562,11 @@ public class Biomes {
 		if (brycePillars) {
 			int i = (x & -16) + (z & 15);
 			int j = (z & -16) + (x & 15);
-			double d0 = Math.min(Math.abs(noiseVal), WorldGen.mesaPillarNoise.getValue(i * 0.25D, j * 0.25D));
+			double d0 = Math.min(Math.abs(noiseVal), WorldGen.getMesaPillarNoise().getValue(i * 0.25D, j * 0.25D));
 
 			if (d0 > 0.0D) {
 				final double d1 = 0.001953125D;
-				double d2 = Math.abs(WorldGen.mesaPillarRoofNoise.getValue(i * d1, j * 0.001953125D));
+				double d2 = Math.abs(WorldGen.getMesaPillarRoofNoise().getValue(i * d1, j * 0.001953125D));
 				d4 = d0 * d0 * 2.5D;
 				double d3 = Math.ceil(d2 * 50.0D) + 14.0D;
 
@@ -1,5 +1,15 @@
 package seedfinder.biome;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import seedfinder.util.IntCache;
+
 public abstract class GenLayer {
 
 	/*
@@ -9,12 +19,47 @@ public abstract class GenLayer {
 	private static final long MULTIPLIER = 6364136223846793005L;
 	private static final long INCREMENT = 1442695040888963407L;
 
+	/**
+	 * The largest area whose values are remembered. A following request inside
+	 * the same area is answered without going further up the stack, which
+	 * mostly happens in the coarser layers when querying neighbouring points.
+	 */
+	private static final int MAX_REMEMBERED_SIZE = 64;
+	/**
+	 * The largest area whose values are remembered by a layer with more than
+	 * one child, so that the second child to request an area only generates
+	 * the part which the first didn't
+	 */
+	private static final int MAX_SHARED_REMEMBERED_SIZE = 1 << 16;
+
+	/**
+	 * Whether to count the cells each layer generates, see
+	 * {@link #getGeneratedCellCount()}. Enabled with
+	 * <tt>-Dseedfinder.countCells=true</tt>.
+	 */
+	private static final boolean COUNT_CELLS = Boolean.getBoolean("seedfinder.countCells");
+
 	private long worldSeed;
+	/**
+	 * The first step of every chunk seed, which only depends on the world seed
+	 */
+	private long chunkSeedStart;
 	protected GenLayer parent;
 	private long chunkSeed;
+	private long[] columnChunkSeeds = new long[0];
 	protected long uniquifier;
+	private final String name;
+
+	private boolean shared = false;
+	private int[] rememberedValues = new int[MAX_REMEMBERED_SIZE];
+	private int rememberedX;
+	private int rememberedZ;
+	private int rememberedWidth = 0;
+	private int rememberedHeight = 0;
+	private long generatedCellCount = 0;
 
 	public GenLayer(long uniquifier) {
+		this.name = getClass().getSimpleName() + "(" + uniquifier + ")";
 		this.uniquifier = uniquifier;
 		this.uniquifier *= this.uniquifier * MULTIPLIER + INCREMENT;
 		this.uniquifier += uniquifier;
@@ -25,6 +70,15 @@ public abstract class GenLayer {
 	}
 
 	public static GenLayer initializeBiomeGenerator() {
+		return initializeBiomeGenerator(new EnumMap<>(BiomeDepth.class));
+	}
+
+	/**
+	 * Creates the biome layer stack, and puts the layer which finishes each
+	 * {@link BiomeDepth} apart from {@link BiomeDepth#BLOCKS} into the given
+	 * map
+	 */
+	public static GenLayer initializeBiomeGenerator(Map<BiomeDepth, GenLayer> layersByDepth) {
 		GenLayer layer = new GenLayerIsland(1);
 		layer = new GenLayerFuzzyZoom(2000, layer);
 		layer = new GenLayerAddIsland(1, layer);
@@ -43,12 +97,16 @@ public abstract class GenLayer {
 		layer = new GenLayerAddIsland(4, layer);
 		layer = new GenLayerAddMushroomIsland(5, layer);
 		layer = new GenLayerDeepOcean(4, layer);
+		layer.markShared();
+		layersByDepth.put(BiomeDepth.LAND_AND_OCEAN, layer);
 		layer = GenLayerZoom.magnify(1000, layer, 0);
 
 		GenLayer randomValuesLayer = GenLayerZoom.magnify(1000, layer, 0);
 		randomValuesLayer = new GenLayerRandomValues(100, randomValuesLayer);
+		randomValuesLayer.markShared();
 
 		GenLayer biomeLayer = new GenLayerBiome(200, layer);
+		layersByDepth.put(BiomeDepth.BIOMES, biomeLayer);
 		biomeLayer = GenLayerZoom.magnify(1000, biomeLayer, 2);
 		biomeLayer = new GenLayerBiomeEdge(1000, biomeLayer);
 		GenLayer tmp = GenLayerZoom.magnify(1000, randomValuesLayer, 2);
@@ -64,10 +122,10 @@ public abstract class GenLayer {
 		biomeLayer = new GenLayerAddIsland(3, biomeLayer);
 		biomeLayer = new GenLayerZoom(1001, biomeLayer);
 		biomeLayer = new GenLayerShore(1000, biomeLayer);
-		biomeLayer = new GenLayerZoom(1002, biomeLayer);
-		biomeLayer = new GenLayerZoom(1003, biomeLayer);
+		biomeLayer = GenLayerZoom.magnify(1002, biomeLayer, 2);
 		biomeLayer = new GenLayerSmooth(1000, biomeLayer);
 		biomeLayer = new GenLayerRiverMix(100, biomeLayer, riverLayer);
+		layersByDepth.put(BiomeDepth.GENERATION, biomeLayer);
 
 		return biomeLayer;
 	}
@@ -85,14 +143,107 @@ public abstract class GenLayer {
 		worldSeed += uniquifier;
 		worldSeed *= worldSeed * MULTIPLIER + INCREMENT;
 		worldSeed += uniquifier;
+
+		chunkSeedStart = worldSeed * (worldSeed * MULTIPLIER + INCREMENT);
+	}
+
+	/**
+	 * Forgets the remembered values of this layer and the layers above it,
+	 * which must be done when the world seed changes
+	 */
+	public void forgetValues() {
+		rememberedWidth = rememberedHeight = 0;
+
+		for (GenLayer parent : getParents()) {
+			parent.forgetValues();
+		}
+	}
+
+	/**
+	 * Gets the layers this layer takes its values from. The layer stack is a
+	 * DAG, as some layers are the parent of more than one layer.
+	 */
+	protected List<GenLayer> getParents() {
+		return parent == null ? Collections.emptyList() : Collections.singletonList(parent);
+	}
+
+	/**
+	 * Marks this layer as having more than one child. It then remembers larger
+	 * areas, so that the overlap between the areas its children request is
+	 * only generated once.
+	 */
+	protected void markShared() {
+		shared = true;
+	}
+
+	/**
+	 * Calls the given action for the given layer and every layer above it,
+	 * each only once, with parents before their children
+	 */
+	public static void forEachLayer(GenLayer layer, Consumer<GenLayer> action) {
+		forEachLayer(layer, action, Collections.newSetFromMap(new IdentityHashMap<>()));
+	}
+
+	private static void forEachLayer(GenLayer layer, Consumer<GenLayer> action, Set<GenLayer> visited) {
+		if (!visited.add(layer)) {
+			return;
+		}
+		for (GenLayer parent : layer.getParents()) {
+			forEachLayer(parent, action, visited);
+		}
+		action.accept(layer);
+	}
+
+	/**
+	 * Gets the number of cells this layer has generated, not counting those
+	 * it had remembered. Always zero unless enabled with
+	 * <tt>-Dseedfinder.countCells=true</tt>.
+	 */
+	public long getGeneratedCellCount() {
+		return generatedCellCount;
+	}
+
+	@Override
+	public String toString() {
+		return name;
 	}
 
 	public void initChunkSeed(long x, long z) {
-		chunkSeed = worldSeed;
-		chunkSeed *= chunkSeed * MULTIPLIER + INCREMENT;
-		chunkSeed += x;
-		chunkSeed *= chunkSeed * MULTIPLIER + INCREMENT;
-		chunkSeed += z;
+		initChunkSeed(getColumnChunkSeed(x), x, z);
+	}
+
+	/**
+	 * Gets the part of the chunk seed which only depends on x
+	 */
+	private long getColumnChunkSeed(long x) {
+		long seed = chunkSeedStart + x;
+		return seed * (seed * MULTIPLIER + INCREMENT);
+	}
+
+	/**
+	 * Gets the parts of the chunk seeds of the columns <tt>x + i &lt;&lt;
+	 * shift</tt> for <tt>i</tt> up to <tt>width</tt>, to be passed to
+	 * {@link #initChunkSeed(long, long, long)}. Layers which need the chunk
+	 * seed of every cell get these once per column instead of once per cell.
+	 * The returned array is re-used by the next call.
+	 */
+	protected long[] getColumnChunkSeeds(int x, int width, int shift) {
+		if (columnChunkSeeds.length < width) {
+			columnChunkSeeds = new long[width];
+		}
+		for (int i = 0; i < width; i++) {
+			columnChunkSeeds[i] = getColumnChunkSeed(x + i << shift);
+		}
+		return columnChunkSeeds;
+	}
+
+	/**
+	 * Initializes the chunk seed from the part of it given by
+	 * {@link #getColumnChunkSeeds(int, int, int)}, which is the same as
+	 * {@link #initChunkSeed(long, long)}
+	 */
+	protected void initChunkSeed(long columnChunkSeed, long x, long z) {
+		chunkSeed = columnChunkSeed + z;
 		chunkSeed *= chunkSeed * MULTIPLIER + INCREMENT;
 		chunkSeed += x;
 		chunkSeed *= chunkSeed * MULTIPLIER + INCREMENT;
@@ -100,9 +251,16 @@ public abstract class GenLayer {
 	}
 
 	protected int nextInt(int max) {
-		int num = (int) ((chunkSeed >> 24) % max);
-		if (num < 0) {
-			num += max;
+		int num;
+		if ((max & max - 1) == 0) {
+			// The remainder of a power of two is just the low bits, and is
+			// never negative
+			num = (int) (chunkSeed >> 24) & max - 1;
+		} else {
+			num = (int) ((chunkSeed >> 24) % max);
+			if (num < 0) {
+				num += max;
+			}
 		}
 
 		chunkSeed *= chunkSeed * MULTIPLIER + INCREMENT;
@@ -111,8 +269,21 @@ public abstract class GenLayer {
 		return num;
 	}
 
-	protected int choose(int... values) {
-		return values[nextInt(values.length)];
+	protected int choose(int a, int b) {
+		return nextInt(2) == 0 ? a : b;
+	}
+
+	protected int choose(int a, int b, int c, int d) {
+		switch (nextInt(4)) {
+		case 0:
+			return a;
+		case 1:
+			return b;
+		case 2:
+			return c;
+		default:
+			return d;
+		}
 	}
 
 	protected int modeOrRandom(int a, int b, int c, int d) {
@@ -155,6 +326,90 @@ public abstract class GenLayer {
 		return choose(a, b, c, d);
 	}
 
-	public abstract int[] getValues(int x, int z, int width, int height);
+	/**
+	 * Gets the values of this layer in the given area. The returned array is
+	 * from the {@link IntCache}.
+	 */
+	public final int[] getValues(int x, int z, int width, int height) {
+		int overlapStartX = Math.max(x, rememberedX);
+		int overlapStartZ = Math.max(z, rememberedZ);
+		int overlapEndX = Math.min(x + width, rememberedX + rememberedWidth);
+		int overlapEndZ = Math.min(z + height, rememberedZ + rememberedHeight);
+
+		int[] values;
+		if (overlapStartX == x && overlapStartZ == z && overlapEndX == x + width && overlapEndZ == z + height) {
+			// All remembered
+			values = IntCache.get(width * height);
+			copyRemembered(values, x, z, width, x, z, width, height);
+			return values;
+		} else if (shared && overlapStartX < overlapEndX && overlapStartZ < overlapEndZ) {
+			// Only generate the rows above and below the overlap, and the
+			// parts of the rows either side of it
+			values = IntCache.get(width * height);
+			copyRemembered(values, x, z, width, overlapStartX, overlapStartZ, overlapEndX - overlapStartX,
+					overlapEndZ - overlapStartZ);
+			generateInto(values, x, z, width, x, z, width, overlapStartZ - z);
+			generateInto(values, x, z, width, x, overlapEndZ, width, z + height - overlapEndZ);
+			generateInto(values, x, z, width, x, overlapStartZ, overlapStartX - x, overlapEndZ - overlapStartZ);
+			generateInto(values, x, z, width, overlapEndX, overlapStartZ, x + width - overlapEndX,
+					overlapEndZ - overlapStartZ);
+		} else {
+			values = generate(x, z, width, height);
+		}
+
+		int maxRememberedSize = shared ? MAX_SHARED_REMEMBERED_SIZE : MAX_REMEMBERED_SIZE;
+		if (width * height <= maxRememberedSize) {
+			if (rememberedValues.length < width * height) {
+				rememberedValues = new int[width * height];
+			}
+			System.arraycopy(values, 0, rememberedValues, 0, width * height);
+			rememberedX = x;
+			rememberedZ = z;
+			rememberedWidth = width;
+			rememberedHeight = height;
+		}
+
+		return values;
+	}
+
+	/**
+	 * Copies the given part of the remembered values into the given part of
+	 * an array of values starting at <tt>(valuesX, valuesZ)</tt>
+	 */
+	private void copyRemembered(int[] values, int valuesX, int valuesZ, int valuesWidth, int x, int z, int width,
+			int height) {
+		for (int dz = 0; dz < height; dz++) {
+			System.arraycopy(rememberedValues, (z - rememberedZ + dz) * rememberedWidth + x - rememberedX, values,
+					(z - valuesZ + dz) * valuesWidth + x - valuesX, width);
+		}
+	}
+
+	/**
+	 * Generates the given part of an array of values starting at
+	 * <tt>(valuesX, valuesZ)</tt>
+	 */
+	private void generateInto(int[] values, int valuesX, int valuesZ, int valuesWidth, int x, int z, int width,
+			int height) {
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		int[] part = generate(x, z, width, height);
+		for (int dz = 0; dz < height; dz++) {
+			System.arraycopy(part, dz * width, values, (z - valuesZ + dz) * valuesWidth + x - valuesX, width);
+		}
+	}
+
+	private int[] generate(int x, int z, int width, int height) {
+		if (COUNT_CELLS) {
+			generatedCellCount += width * height;
+		}
+		return generateValues(x, z, width, height);
+	}
+
+	/**
+	 * Generates the values of this layer in the given area. Each value only
+	 * depends on its position, never on the area it is generated as part of.
+	 */
+	protected abstract int[] generateValues(int x, int z, int width, int height);
 
 }
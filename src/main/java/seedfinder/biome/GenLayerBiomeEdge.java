@@ -10,7 +10,7 @@ public class GenLayerBiomeEdge extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int[] parentValues = this.parent.getValues(x - 1, z - 1, width + 2, height + 2);
 		int[] values = IntCache.get(width * height);
 
@@ -10,7 +10,7 @@ public class GenLayerDeepOcean extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int parentX = x - 1;
 		int parentZ = z - 1;
 		int parentWidth = width + 2;
@@ -0,0 +1,119 @@
+package seedfinder.biome;
+
+import seedfinder.util.IntCache;
+
+/**
+ * A chain of {@link GenLayerZoom}s evaluated as one layer. The area is split
+ * into tiles, and each tile is zoomed through all the levels in two small
+ * buffers, rather than each level generating and cropping its whole area
+ * before the next one starts. The values are the same as those of the chain.
+ */
+public class GenLayerFusedZoom extends GenLayer {
+
+	/**
+	 * The width and height of the tiles of the area, so that each tile's
+	 * levels stay in the CPU cache
+	 */
+	private static final int TILE_SIZE = 32;
+
+	/**
+	 * The zoom levels, from the first one to zoom the parent to the last. They
+	 * only provide the random numbers for their level, so have no parents.
+	 */
+	private final GenLayerZoom[] levels;
+
+	private int[] buffer = new int[0];
+	private int[] otherBuffer = new int[0];
+
+	public GenLayerFusedZoom(GenLayer parent, long... uniquifiers) {
+		super(uniquifiers[0]);
+		this.parent = parent;
+		this.levels = new GenLayerZoom[uniquifiers.length];
+		for (int i = 0; i < uniquifiers.length; i++) {
+			levels[i] = new GenLayerZoom(uniquifiers[i], null);
+		}
+	}
+
+	@Override
+	public void initWorldSeed(long seed) {
+		super.initWorldSeed(seed);
+		for (GenLayerZoom level : levels) {
+			level.initWorldSeed(seed);
+		}
+	}
+
+	@Override
+	protected int[] generateValues(int x, int z, int width, int height) {
+		int levelCount = levels.length;
+
+		// The parent area covering the whole area
+		int parentX = x >> levelCount;
+		int parentZ = z >> levelCount;
+		int parentWidth = getParentEnd(x + width - 1, levelCount) - parentX + 1;
+		int parentHeight = getParentEnd(z + height - 1, levelCount) - parentZ + 1;
+		int[] parentValues = parent.getValues(parentX, parentZ, parentWidth, parentHeight);
+
+		int[] values = IntCache.get(width * height);
+
+		for (int tileZ = z; tileZ < z + height; tileZ += TILE_SIZE) {
+			int tileHeight = Math.min(TILE_SIZE, z + height - tileZ);
+			for (int tileX = x; tileX < x + width; tileX += TILE_SIZE) {
+				int tileWidth = Math.min(TILE_SIZE, x + width - tileX);
+
+				// Start with the part of the parent area which the tile needs
+				int fromX = tileX >> levelCount;
+				int fromZ = tileZ >> levelCount;
+				int fromWidth = getParentEnd(tileX + tileWidth - 1, levelCount) - fromX + 1;
+				int fromHeight = getParentEnd(tileZ + tileHeight - 1, levelCount) - fromZ + 1;
+				int[] from = parentValues;
+				int fromOffset = (fromZ - parentZ) * parentWidth + fromX - parentX;
+				int fromStride = parentWidth;
+
+				for (int level = 0; level < levelCount; level++) {
+					int zoomedWidth = fromWidth - 1 << 1;
+					int zoomedHeight = fromHeight - 1 << 1;
+					if (buffer.length < zoomedWidth * zoomedHeight) {
+						buffer = new int[zoomedWidth * zoomedHeight];
+					}
+					levels[level].zoom(from, fromOffset, fromStride, fromX, fromZ, fromWidth, fromHeight, buffer);
+
+					// The next level only needs part of the zoomed area
+					int levelsLeft = levelCount - level - 1;
+					int nextX = tileX >> levelsLeft;
+					int nextZ = tileZ >> levelsLeft;
+					fromOffset = ((nextZ - (fromZ << 1)) * zoomedWidth) + nextX - (fromX << 1);
+					fromWidth = getParentEnd(tileX + tileWidth - 1, levelsLeft) - nextX + 1;
+					fromHeight = getParentEnd(tileZ + tileHeight - 1, levelsLeft) - nextZ + 1;
+					fromX = nextX;
+					fromZ = nextZ;
+					fromStride = zoomedWidth;
+
+					from = buffer;
+					buffer = otherBuffer;
+					otherBuffer = from;
+				}
+
+				// Now the area starts at the tile
+				for (int dz = 0; dz < tileHeight; dz++) {
+					System.arraycopy(from, fromOffset + dz * fromStride, values, (tileZ - z + dz) * width + tileX - x,
+							tileWidth);
+				}
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Gets the last cell, <tt>levels</tt> zooms up, which is needed to zoom
+	 * down to the given cell. Each zoom needs one more cell than the one
+	 * containing it, to zoom towards.
+	 */
+	private static int getParentEnd(int end, int levels) {
+		for (int i = 0; i < levels; i++) {
+			end = (end >> 1) + 1;
+		}
+		return end;
+	}
+
+}
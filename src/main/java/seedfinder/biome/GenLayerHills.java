@@ -1,5 +1,8 @@
 package seedfinder.biome;
 
+import java.util.Arrays;
+import java.util.List;
+
 import seedfinder.util.IntCache;
 
 public class GenLayerHills extends GenLayer {
@@ -13,7 +16,15 @@ public class GenLayerHills extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected List<GenLayer> getParents() {
+		// The random values layer isn't reached by initWorldSeed, as in
+		// vanilla, but its parents are, so its values still change with the
+		// seed and have to be forgotten
+		return Arrays.asList(parent, randomValuesLayer);
+	}
+
+	@Override
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int[] parentValues = parent.getValues(x - 1, z - 1, width + 2, height + 2);
 		int[] randomValues = randomValuesLayer.getValues(x - 1, z - 1, width + 2, height + 2);
 		int[] values = IntCache.get(width * height);
@@ -9,7 +9,7 @@ public class GenLayerIsland extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int[] values = IntCache.get(width * height);
 
 		for (int dz = 0; dz < height; dz++) {
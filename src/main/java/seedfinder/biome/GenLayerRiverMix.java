@@ -1,5 +1,8 @@
 package seedfinder.biome;
 
+import java.util.Arrays;
+import java.util.List;
+
 import seedfinder.util.IntCache;
 
 public class GenLayerRiverMix extends GenLayer {
@@ -21,7 +24,12 @@ public class GenLayerRiverMix extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected List<GenLayer> getParents() {
+		return Arrays.asList(biomeLayer, riverLayer);
+	}
+
+	@Override
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int[] biomeValues = this.biomeLayer.getValues(x, z, width, height);
 		int[] riverValues = this.riverLayer.getValues(x, z, width, height);
 		int[] values = IntCache.get(width * height);
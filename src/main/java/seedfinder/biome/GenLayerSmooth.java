@@ -10,7 +10,7 @@ public class GenLayerSmooth extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int parentX = x - 1;
 		int parentZ = z - 1;
 		int parentWidth = width + 2;
@@ -18,6 +18,7 @@ public class GenLayerSmooth extends GenLayer {
 		int[] parentValues = parent.getValues(parentX, parentZ, parentWidth, parentHeight);
 
 		int[] values = IntCache.get(width * height);
+		long[] columnChunkSeeds = getColumnChunkSeeds(x, width, 0);
 
 		for (int dz = 0; dz < height; ++dz) {
 			for (int dx = 0; dx < width; ++dx) {
@@ -28,7 +29,7 @@ public class GenLayerSmooth extends GenLayer {
 				int valueHere = parentValues[dx + 1 + (dz + 1) * parentWidth];
 
 				if (valueLeft == valueRight && valueUp == valueDown) {
-					initChunkSeed(dx + x, dz + z);
+					initChunkSeed(columnChunkSeeds[dx], dx + x, dz + z);
 
 					if (nextInt(2) == 0) {
 						valueHere = valueLeft;
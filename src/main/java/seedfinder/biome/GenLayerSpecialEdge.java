@@ -10,7 +10,7 @@ public class GenLayerSpecialEdge extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int[] parentValues = parent.getValues(x, z, width, height);
 		int[] values = IntCache.get(width * height);
 
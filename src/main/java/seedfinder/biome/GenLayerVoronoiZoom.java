@@ -1,23 +1,65 @@
 package seedfinder.biome;
 
+import java.util.Arrays;
+
 import seedfinder.util.IntCache;
 
 public class GenLayerVoronoiZoom extends GenLayer {
 
+	/**
+	 * The number of parent cells remembered for single blocks is 2 to the
+	 * power of this
+	 */
+	private static final int CELL_CACHE_BITS = 10;
+	private static final int CELL_CACHE_SIZE = 1 << CELL_CACHE_BITS;
+	private static final double JITTER_RANGE = 3.6;
+
+	/*
+	 * A direct-mapped cache of the parent cells used for single blocks. Each
+	 * parent cell is a corner of the four cells around it, so its value and
+	 * jitter are needed by blocks in four different cells.
+	 */
+	private final boolean[] cellCached = new boolean[CELL_CACHE_SIZE];
+	private final int[] cellX = new int[CELL_CACHE_SIZE];
+	private final int[] cellZ = new int[CELL_CACHE_SIZE];
+	private final int[] cellValues = new int[CELL_CACHE_SIZE];
+	private final double[] cellJitterX = new double[CELL_CACHE_SIZE];
+	private final double[] cellJitterZ = new double[CELL_CACHE_SIZE];
+
 	public GenLayerVoronoiZoom(long uniquifier, GenLayer parent) {
 		super(uniquifier);
 		this.parent = parent;
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	public void initWorldSeed(long seed) {
+		super.initWorldSeed(seed);
+		Arrays.fill(cellCached, false);
+	}
+
+	@Override
+	public void forgetValues() {
+		super.forgetValues();
+		Arrays.fill(cellCached, false);
+	}
+
+	@Override
+	protected int[] generateValues(int x, int z, int width, int height) {
+		if (width == 1 && height == 1) {
+			int[] values = IntCache.get(1);
+			values[0] = getValue(x, z);
+			return values;
+		}
+
 		x = x - 2;
 		z = z - 2;
 
 		int parentX = x >> 2;
 		int parentZ = z >> 2;
-		int parentWidth = (width >> 2) + 2;
-		int parentHeight = (height >> 2) + 2;
+		// Only the parent cells covering the area, and one more on each axis to
+		// zoom towards
+		int parentWidth = (x + width - 1 >> 2) - parentX + 2;
+		int parentHeight = (z + height - 1 >> 2) - parentZ + 2;
 		int[] parentValues = parent.getValues(parentX, parentZ, parentWidth, parentHeight);
 
 		int zoomedWidth = parentWidth - 1 << 2;
@@ -29,7 +71,7 @@ public class GenLayerVoronoiZoom extends GenLayer {
 			int valueBottomLeft = parentValues[(dz + 1) * parentWidth];
 
 			for (int dx = 0; dx < parentWidth - 1; dx++) {
-				final double range = 3.6;
+				final double range = JITTER_RANGE;
 				initChunkSeed(dx + parentX << 2, dz + parentZ << 2);
 				double topLeftX = (nextInt(1024) / 1024.0 - 0.5) * range;
 				double topLeftZ = (nextInt(1024) / 1024.0 - 0.5) * range;
@@ -88,4 +130,97 @@ public class GenLayerVoronoiZoom extends GenLayer {
 		return values;
 	}
 
+	/**
+	 * Gets the value of a single block, from only the four parent cells around
+	 * it, which are cached for the blocks near it. The same as the value of the
+	 * block in a larger area.
+	 */
+	private int getValue(int x, int z) {
+		x -= 2;
+		z -= 2;
+		int parentX = x >> 2;
+		int parentZ = z >> 2;
+		int ddx = x & 3;
+		int ddz = z & 3;
+
+		int topLeft = getCachedCell(parentX, parentZ);
+		int topRight = getCachedCell(parentX + 1, parentZ);
+		int bottomLeft = getCachedCell(parentX, parentZ + 1);
+		int bottomRight = getCachedCell(parentX + 1, parentZ + 1);
+		if (topLeft < 0 || topRight < 0 || bottomLeft < 0 || bottomRight < 0) {
+			// Get all four values at once
+			int[] parentValues = parent.getValues(parentX, parentZ, 2, 2);
+			topLeft = cacheCell(parentX, parentZ, parentValues[0]);
+			topRight = cacheCell(parentX + 1, parentZ, parentValues[1]);
+			bottomLeft = cacheCell(parentX, parentZ + 1, parentValues[2]);
+			bottomRight = cacheCell(parentX + 1, parentZ + 1, parentValues[3]);
+		}
+
+		// The same sums as generateValues, so the same rounding
+		double topLeftX = cellJitterX[topLeft];
+		double topLeftZ = cellJitterZ[topLeft];
+		double topRightX = cellJitterX[topRight] + 4.0;
+		double topRightZ = cellJitterZ[topRight];
+		double bottomLeftX = cellJitterX[bottomLeft];
+		double bottomLeftZ = cellJitterZ[bottomLeft] + 4.0;
+		double bottomRightX = cellJitterX[bottomRight] + 4.0;
+		double bottomRightZ = cellJitterZ[bottomRight] + 4.0;
+
+		double distSqTopLeft = (ddz - topLeftZ) * (ddz - topLeftZ) + (ddx - topLeftX) * (ddx - topLeftX);
+		double distSqTopRight = (ddz - topRightZ) * (ddz - topRightZ) + (ddx - topRightX) * (ddx - topRightX);
+		double distSqBottomLeft = (ddz - bottomLeftZ) * (ddz - bottomLeftZ)
+				+ (ddx - bottomLeftX) * (ddx - bottomLeftX);
+		double distSqBottomRight = (ddz - bottomRightZ) * (ddz - bottomRightZ)
+				+ (ddx - bottomRightX) * (ddx - bottomRightX);
+
+		if (distSqTopLeft < distSqTopRight && distSqTopLeft < distSqBottomLeft
+				&& distSqTopLeft < distSqBottomRight) {
+			return cellValues[topLeft];
+		} else if (distSqTopRight < distSqTopLeft && distSqTopRight < distSqBottomLeft
+				&& distSqTopRight < distSqBottomRight) {
+			return cellValues[topRight] & 255;
+		} else if (distSqBottomLeft < distSqTopLeft && distSqBottomLeft < distSqTopRight
+				&& distSqBottomLeft < distSqBottomRight) {
+			return cellValues[bottomLeft];
+		} else {
+			return cellValues[bottomRight] & 255;
+		}
+	}
+
+	/**
+	 * Gets the slot of the given parent cell in the cache. The low two bits of
+	 * the slot are the low bits of the cell's coordinates, so the four cells
+	 * around a block never evict each other. The rest is a hash, as structures
+	 * are often checked at regularly spaced positions.
+	 */
+	private static int getCacheIndex(int x, int z) {
+		int hash = (x >> 1) * 0x9e3779b1 + (z >> 1) * 0x85ebca6b;
+		return (hash >>> 32 - CELL_CACHE_BITS + 2) << 2 | (x & 1) << 1 | z & 1;
+	}
+
+	/**
+	 * Gets the index of the given parent cell in the cache, or -1 if it isn't
+	 * cached
+	 */
+	private int getCachedCell(int x, int z) {
+		int index = getCacheIndex(x, z);
+		return cellCached[index] && cellX[index] == x && cellZ[index] == z ? index : -1;
+	}
+
+	/**
+	 * Caches the given parent cell, working out its jitter, and returns its
+	 * index in the cache
+	 */
+	private int cacheCell(int x, int z, int value) {
+		int index = getCacheIndex(x, z);
+		initChunkSeed(x << 2, z << 2);
+		cellJitterX[index] = (nextInt(1024) / 1024.0 - 0.5) * JITTER_RANGE;
+		cellJitterZ[index] = (nextInt(1024) / 1024.0 - 0.5) * JITTER_RANGE;
+		cellValues[index] = value;
+		cellX[index] = x;
+		cellZ[index] = z;
+		cellCached[index] = true;
+		return index;
+	}
+
 }
@@ -10,27 +10,52 @@ public class GenLayerZoom extends GenLayer {
 	}
 
 	@Override
-	public int[] getValues(int x, int z, int width, int height) {
+	protected int[] generateValues(int x, int z, int width, int height) {
 		int parentX = x >> 1;
 		int parentZ = z >> 1;
-		int parentWidth = (width >> 1) + 2;
-		int parentHeight = (height >> 1) + 2;
+		// Only the parent cells covering the area, and one more on each axis to
+		// zoom towards
+		int parentWidth = (x + width - 1 >> 1) - parentX + 2;
+		int parentHeight = (z + height - 1 >> 1) - parentZ + 2;
 		int[] parentValues = parent.getValues(parentX, parentZ, parentWidth, parentHeight);
 
 		int zoomedWidth = parentWidth - 1 << 1;
 		int zoomedHeight = parentHeight - 1 << 1;
 		int[] zoomedValues = IntCache.get(zoomedWidth * zoomedHeight);
+		zoom(parentValues, 0, parentWidth, parentX, parentZ, parentWidth, parentHeight, zoomedValues);
+
+		int[] values = IntCache.get(width * height);
+
+		for (int i = 0; i < height; ++i) {
+			System.arraycopy(zoomedValues, (i + (z & 1)) * zoomedWidth + (x & 1), values, i * width, width);
+		}
+
+		return values;
+	}
+
+	/**
+	 * Zooms the given area of parent values, which starts at
+	 * <tt>offset</tt> in <tt>parentValues</tt> with rows <tt>stride</tt>
+	 * apart. The last row and column of the parents are only zoomed towards,
+	 * so the zoomed area starts at twice the parent position and is
+	 * <tt>2 * (parentWidth - 1)</tt> by <tt>2 * (parentHeight - 1)</tt>.
+	 */
+	void zoom(int[] parentValues, int offset, int stride, int parentX, int parentZ, int parentWidth,
+			int parentHeight, int[] zoomedValues) {
+		int zoomedWidth = parentWidth - 1 << 1;
+		long[] columnChunkSeeds = getColumnChunkSeeds(parentX, parentWidth - 1, 1);
 
 		for (int dz = 0; dz < parentHeight - 1; dz++) {
 			int index = (dz << 1) * zoomedWidth;
-			int valueTopLeft = parentValues[dz * parentWidth];
-			int valueBottomLeft = parentValues[(dz + 1) * parentWidth];
+			int row = offset + dz * stride;
+			int valueTopLeft = parentValues[row];
+			int valueBottomLeft = parentValues[row + stride];
 
 			for (int dx = 0; dx < parentWidth - 1; dx++) {
-				initChunkSeed(dx + parentX << 1, dz + parentZ << 1);
+				initChunkSeed(columnChunkSeeds[dx], dx + parentX << 1, dz + parentZ << 1);
 
-				int valueTopRight = parentValues[dx + 1 + dz * parentWidth];
-				int valueBottomRight = parentValues[dx + 1 + (dz + 1) * parentWidth];
+				int valueTopRight = parentValues[row + dx + 1];
+				int valueBottomRight = parentValues[row + dx + 1 + stride];
 
 				zoomedValues[index] = valueTopLeft;
 				zoomedValues[index++ + zoomedWidth] = choose(valueTopLeft, valueBottomLeft);
@@ -42,24 +67,25 @@ public class GenLayerZoom extends GenLayer {
 				valueBottomLeft = valueBottomRight;
 			}
 		}
-
-		int[] values = IntCache.get(width * height);
-
-		for (int i = 0; i < height; ++i) {
-			System.arraycopy(zoomedValues, (i + (z & 1)) * zoomedWidth + (x & 1), values, i * width, width);
-		}
-
-		return values;
 	}
 
+	/**
+	 * Zooms the given layer the given number of times. More than one zoom is
+	 * evaluated as a single {@link GenLayerFusedZoom}.
+	 */
 	public static GenLayer magnify(long uniquifier, GenLayer parent, int times) {
-		GenLayer layer = parent;
+		if (times == 0) {
+			return parent;
+		}
+		if (times == 1) {
+			return new GenLayerZoom(uniquifier, parent);
+		}
 
+		long[] uniquifiers = new long[times];
 		for (int i = 0; i < times; i++) {
-			layer = new GenLayerZoom(uniquifier + i, layer);
+			uniquifiers[i] = uniquifier + i;
 		}
-
-		return layer;
+		return new GenLayerFusedZoom(parent, uniquifiers);
 	}
 
 }
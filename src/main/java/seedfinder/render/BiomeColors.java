@@ -0,0 +1,85 @@
+package seedfinder.render;
+
+import static seedfinder.biome.Biomes.*;
+
+/**
+ * The colours biomes are drawn in on maps, the same as Amidst's defaults
+ */
+public class BiomeColors {
+
+	private BiomeColors() {
+	}
+
+	/**
+	 * The colour of values which aren't biomes
+	 */
+	private static final int UNKNOWN = 0xff00ff;
+
+	private static final int[] COLORS = new int[256];
+
+	static {
+		COLORS[OCEAN] = 0x000070;
+		COLORS[PLAINS] = 0x8db360;
+		COLORS[DESERT] = 0xfa9418;
+		COLORS[EXTREME_HILLS] = 0x606060;
+		COLORS[FOREST] = 0x056621;
+		COLORS[TAIGA] = 0x0b6659;
+		COLORS[SWAMPLAND] = 0x07f9b2;
+		COLORS[RIVER] = 0x0000ff;
+		COLORS[HELL] = 0xff0000;
+		COLORS[SKY] = 0x8080ff;
+		COLORS[FROZEN_OCEAN] = 0x9090a0;
+		COLORS[FROZEN_RIVER] = 0xa0a0ff;
+		COLORS[ICE_FLATS] = 0xffffff;
+		COLORS[ICE_MOUNTAINS] = 0xa0a0a0;
+		COLORS[MUSHROOM_ISLAND] = 0xff00ff;
+		COLORS[MUSHROOM_ISLAND_SHORE] = 0xa000ff;
+		COLORS[BEACHES] = 0xfade55;
+		COLORS[DESERT_HILLS] = 0xd25f12;
+		COLORS[FOREST_HILLS] = 0x22551c;
+		COLORS[TAIGA_HILLS] = 0x163933;
+		COLORS[SMALLER_EXTREME_HILLS] = 0x72789a;
+		COLORS[JUNGLE] = 0x537b09;
+		COLORS[JUNGLE_HILLS] = 0x2c4205;
+		COLORS[JUNGLE_EDGE] = 0x628b17;
+		COLORS[DEEP_OCEAN] = 0x000030;
+		COLORS[STONE_BEACH] = 0xa2a284;
+		COLORS[COLD_BEACH] = 0xfaf0c0;
+		COLORS[BIRCH_FOREST] = 0x307444;
+		COLORS[BIRCH_FOREST_HILLS] = 0x1f5f32;
+		COLORS[ROOFED_FOREST] = 0x40511a;
+		COLORS[TAIGA_COLD] = 0x31554a;
+		COLORS[TAIGA_COLD_HILLS] = 0x243f36;
+		COLORS[REDWOOD_TAIGA] = 0x596651;
+		COLORS[REDWOOD_TAIGA_HILLS] = 0x545f3e;
+		COLORS[EXTREME_HILLS_WITH_TREES] = 0x507050;
+		COLORS[SAVANNA] = 0xbdb25f;
+		COLORS[SAVANNA_ROCK] = 0xa79d64;
+		COLORS[MESA] = 0xd94515;
+		COLORS[MESA_ROCK] = 0xb09765;
+		COLORS[MESA_CLEAR_ROCK] = 0xca8c65;
+		COLORS[VOID] = 0x000000;
+
+		// Mutated biomes are a lighter version of their base biome
+		for (int biome : ALL_BIOMES) {
+			if ((biome & MUTATED) != 0) {
+				COLORS[biome] = lighten(COLORS[biome & ~MUTATED]);
+			}
+		}
+	}
+
+	/**
+	 * Gets the colour of the given biome, as 0xRRGGBB
+	 */
+	public static int getColor(int biome) {
+		return isBiome(biome) ? COLORS[biome] : UNKNOWN;
+	}
+
+	private static int lighten(int color) {
+		int red = Math.min(255, (color >> 16 & 0xff) + 40);
+		int green = Math.min(255, (color >> 8 & 0xff) + 40);
+		int blue = Math.min(255, (color & 0xff) + 40);
+		return red << 16 | green << 8 | blue;
+	}
+
+}
@@ -0,0 +1,210 @@
+package seedfinder.render;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import seedfinder.biome.BiomeProvider;
+import seedfinder.structure.StrongholdFinder;
+import seedfinder.structure.StructureFinder;
+import seedfinder.structure.TempleFinder;
+import seedfinder.structure.VillageFinder;
+import seedfinder.util.ChunkPos;
+import seedfinder.util.JavaRandom;
+
+/**
+ * Renders the biomes of an area of a seed to a PNG, one pixel per block, with
+ * the structures marked on it. The area is generated in square tiles on a
+ * pool of threads, and each band of tiles is written out as soon as it is
+ * done while the next bands are generated, so only a few bands are ever in
+ * memory however large the map is.
+ */
+public class BiomeMapRenderer {
+
+	/**
+	 * The width and height of the tiles, in blocks
+	 */
+	public static final int TILE_SIZE = 256;
+	/**
+	 * The number of bands of tiles which are generated ahead of the one being
+	 * written
+	 */
+	private static final int BANDS_AHEAD = 2;
+
+	public static final int STRONGHOLD_COLOR = 0xff0000;
+	public static final int VILLAGE_COLOR = 0xffff00;
+	public static final int TEMPLE_COLOR = 0x00ffff;
+	private static final int MARKER_BORDER_COLOR = 0x000000;
+
+	private final long seed;
+	private final int fromX;
+	private final int fromZ;
+	private final int width;
+	private final int height;
+	private final int markerRadius;
+	// x, z and color of each marker, in the order they're drawn
+	private final List<int[]> markers = new ArrayList<>();
+
+	/**
+	 * Creates a renderer for the area between the given block positions,
+	 * inclusive
+	 */
+	public BiomeMapRenderer(long seed, int fromX, int fromZ, int toX, int toZ) {
+		this.seed = seed;
+		this.fromX = Math.min(fromX, toX);
+		this.fromZ = Math.min(fromZ, toZ);
+		long width = (long) Math.max(fromX, toX) - this.fromX + 1;
+		long height = (long) Math.max(fromZ, toZ) - this.fromZ + 1;
+		// Each row has to fit in an array of bytes
+		if (width * 3 + 1 > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Map is too large");
+		}
+		this.width = (int) width;
+		this.height = (int) height;
+		this.markerRadius = Math.max(4, Math.min(this.width, this.height) / 256);
+	}
+
+	/**
+	 * Adds a marker of the given colour, centred on the given block
+	 */
+	public void addMarker(int x, int z, int color) {
+		markers.add(new int[] { x, z, color });
+	}
+
+	/**
+	 * Finds the strongholds, villages and temples in the area and adds markers
+	 * for them. Uses the biome generator of the calling thread.
+	 */
+	public void addStructureMarkers() {
+		BiomeProvider.setWorldSeed(seed);
+		Random rand = new JavaRandom();
+		ChunkPos fromChunk = new ChunkPos(fromX >> 4, fromZ >> 4);
+		ChunkPos toChunk = new ChunkPos(fromX + width - 1 >> 4, fromZ + height - 1 >> 4);
+
+		// Strongholds last, so that they're on top
+		addStructureMarkers(VillageFinder.getInstance(), rand, fromChunk, toChunk, VILLAGE_COLOR);
+		addStructureMarkers(TempleFinder.getInstance(), rand, fromChunk, toChunk, TEMPLE_COLOR);
+		addStructureMarkers(StrongholdFinder.getInstance(), rand, fromChunk, toChunk, STRONGHOLD_COLOR);
+	}
+
+	private void addStructureMarkers(StructureFinder finder, Random rand, ChunkPos fromChunk, ChunkPos toChunk,
+			int color) {
+		finder.reset();
+		finder.findStructurePositions(rand, seed, fromChunk, toChunk);
+		for (ChunkPos pos : finder.getStructurePositions()) {
+			addMarker((pos.getX() << 4) + 8, (pos.getZ() << 4) + 8, color);
+		}
+	}
+
+	/**
+	 * Renders the map to the given stream, which is closed afterwards
+	 */
+	public void render(OutputStream out, int threads) throws IOException {
+		// Each thread has its own biome generator, which needs the seed
+		ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(() -> {
+				BiomeProvider.setWorldSeed(seed);
+				task.run();
+			}, "Biome map renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try (PngWriter png = new PngWriter(out, width, height)) {
+			int bandCount = (height + TILE_SIZE - 1) / TILE_SIZE;
+			Deque<List<Future<int[]>>> pendingBands = new ArrayDeque<>();
+			int nextBand = 0;
+			while (nextBand < bandCount && pendingBands.size() <= BANDS_AHEAD) {
+				pendingBands.add(submitBand(executor, nextBand++));
+			}
+
+			int[] row = new int[width];
+			for (int band = 0; band < bandCount; band++) {
+				List<Future<int[]>> futures = pendingBands.remove();
+				if (nextBand < bandCount) {
+					pendingBands.add(submitBand(executor, nextBand++));
+				}
+
+				int[][] tiles = new int[futures.size()][];
+				for (int i = 0; i < tiles.length; i++) {
+					tiles[i] = getTile(futures.get(i));
+				}
+
+				int bandHeight = Math.min(TILE_SIZE, height - band * TILE_SIZE);
+				for (int dz = 0; dz < bandHeight; dz++) {
+					for (int i = 0; i < tiles.length; i++) {
+						int tileWidth = Math.min(TILE_SIZE, width - i * TILE_SIZE);
+						System.arraycopy(tiles[i], dz * tileWidth, row, i * TILE_SIZE, tileWidth);
+					}
+					png.writeRow(row, 0);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<Future<int[]>> submitBand(ExecutorService executor, int band) {
+		List<Future<int[]>> tiles = new ArrayList<>();
+		int tileZ = fromZ + band * TILE_SIZE;
+		int tileHeight = Math.min(TILE_SIZE, height - band * TILE_SIZE);
+		for (int dx = 0; dx < width; dx += TILE_SIZE) {
+			int tileX = fromX + dx;
+			int tileWidth = Math.min(TILE_SIZE, width - dx);
+			tiles.add(executor.submit(() -> renderTile(tileX, tileZ, tileWidth, tileHeight)));
+		}
+		return tiles;
+	}
+
+	private static int[] getTile(Future<int[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while rendering map");
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to render map tile", e.getCause());
+		}
+	}
+
+	/**
+	 * Gets the colours of the given tile, with the markers drawn on top
+	 */
+	private int[] renderTile(int x, int z, int width, int height) {
+		int[] pixels = BiomeProvider.getBiomes(null, x, z, width, height);
+		for (int i = 0; i < width * height; i++) {
+			pixels[i] = BiomeColors.getColor(pixels[i]);
+		}
+
+		for (int[] marker : markers) {
+			int radius = markerRadius;
+			drawSquare(pixels, x, z, width, height, marker[0], marker[1], radius, MARKER_BORDER_COLOR);
+			drawSquare(pixels, x, z, width, height, marker[0], marker[1], radius - 1, marker[2]);
+		}
+
+		return pixels;
+	}
+
+	private static void drawSquare(int[] pixels, int x, int z, int width, int height, int centerX, int centerZ,
+			int radius, int color) {
+		int minX = Math.max(x, centerX - radius);
+		int minZ = Math.max(z, centerZ - radius);
+		int maxX = Math.min(x + width - 1, centerX + radius);
+		int maxZ = Math.min(z + height - 1, centerZ + radius);
+		for (int pixelZ = minZ; pixelZ <= maxZ; pixelZ++) {
+			for (int pixelX = minX; pixelX <= maxX; pixelX++) {
+				pixels[(pixelZ - z) * width + pixelX - x] = color;
+			}
+		}
+	}
+
+}
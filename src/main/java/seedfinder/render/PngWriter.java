@@ -0,0 +1,155 @@
+package seedfinder.render;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8-bit RGB PNG one row at a time, from the top down, so the whole
+ * image never has to be in memory. The compressed rows are split into IDAT
+ * chunks as they are written.
+ */
+public class PngWriter implements AutoCloseable {
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+	private static final int COLOR_TYPE_RGB = 2;
+	/**
+	 * The size of the IDAT chunks, except the last one
+	 */
+	private static final int IDAT_SIZE = 1 << 16;
+
+	private final DataOutputStream out;
+	private final int width;
+	private final int height;
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private final DeflaterOutputStream data;
+	private final byte[] row;
+	private int rowsWritten = 0;
+
+	public PngWriter(OutputStream out, int width, int height) throws IOException {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+		}
+		this.out = new DataOutputStream(out);
+		this.width = width;
+		this.height = height;
+		this.row = new byte[1 + width * 3];
+		this.data = new DeflaterOutputStream(new IdatOutputStream(), deflater, IDAT_SIZE);
+
+		this.out.write(SIGNATURE);
+		byte[] header = new byte[13];
+		writeInt(header, 0, width);
+		writeInt(header, 4, height);
+		header[8] = 8; // bit depth
+		header[9] = COLOR_TYPE_RGB;
+		// compression, filter and interlace methods are all 0
+		writeChunk("IHDR", header, 0, header.length);
+	}
+
+	/**
+	 * Writes the next row of the image, from <tt>width</tt> colours in the
+	 * form 0xRRGGBB starting at the given offset
+	 */
+	public void writeRow(int[] colors, int offset) throws IOException {
+		if (rowsWritten == height) {
+			throw new IllegalStateException("All rows have already been written");
+		}
+
+		// Filter type 0 (none). Biome maps are mostly runs of the same colour,
+		// which deflate handles well enough without filtering.
+		row[0] = 0;
+		for (int x = 0; x < width; x++) {
+			int color = colors[offset + x];
+			row[1 + x * 3] = (byte) (color >> 16);
+			row[2 + x * 3] = (byte) (color >> 8);
+			row[3 + x * 3] = (byte) color;
+		}
+		data.write(row);
+		rowsWritten++;
+	}
+
+	/**
+	 * Finishes the image, which must have had all its rows written, and closes
+	 * the underlying stream
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (rowsWritten != height) {
+				throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written");
+			}
+			data.close();
+			writeChunk("IEND", new byte[0], 0, 0);
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	private void writeChunk(String type, byte[] bytes, int offset, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(bytes, offset, length);
+
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(bytes, offset, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >> 24);
+		bytes[offset + 1] = (byte) (value >> 16);
+		bytes[offset + 2] = (byte) (value >> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Collects the compressed data into IDAT chunks. Closing it writes the
+	 * last chunk, but leaves the underlying stream open for IEND.
+	 */
+	private class IdatOutputStream extends OutputStream {
+		private final byte[] buffer = new byte[IDAT_SIZE];
+		private int size = 0;
+
+		@Override
+		public void write(int b) throws IOException {
+			if (size == buffer.length) {
+				flushChunk();
+			}
+			buffer[size++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			while (length > 0) {
+				if (size == buffer.length) {
+					flushChunk();
+				}
+				int count = Math.min(length, buffer.length - size);
+				System.arraycopy(bytes, offset, buffer, size, count);
+				size += count;
+				offset += count;
+				length -= count;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (size > 0) {
+				flushChunk();
+			}
+		}
+
+		private void flushChunk() throws IOException {
+			writeChunk("IDAT", buffer, 0, size);
+			size = 0;
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package seedfinder.results;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import seedfinder.util.BlockPos;
+
+/**
+ * Writes results as compact big-endian records, after a header of the magic
+ * number <tt>"SFRS"</tt> and a version int. Each record is:
+ *
+ * <pre>
+ * long  seed
+ * byte  eyes
+ * short pearls
+ * int   portal x, y, z
+ * short chest count
+ * int   x, y, z of each chest
+ * </pre>
+ */
+public class BinaryResultWriter implements ResultWriter {
+
+	public static final int MAGIC = 0x53465253; // "SFRS"
+	public static final int VERSION = 1;
+
+	private final DataOutputStream out;
+
+	public BinaryResultWriter(OutputStream out) {
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+	}
+
+	@Override
+	public void writeHeader() throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	@Override
+	public void write(SeedResult result) throws IOException {
+		out.writeLong(result.getSeed());
+		out.writeByte(result.getEyes());
+		out.writeShort(result.getPearls());
+		writePos(result.getPortalPos());
+		out.writeShort(result.getPearlChestPositions().size());
+		for (BlockPos pos : result.getPearlChestPositions()) {
+			writePos(pos);
+		}
+	}
+
+	private void writePos(BlockPos pos) throws IOException {
+		out.writeInt(pos.getX());
+		out.writeInt(pos.getY());
+		out.writeInt(pos.getZ());
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+}
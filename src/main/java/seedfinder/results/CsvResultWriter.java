@@ -0,0 +1,58 @@
+package seedfinder.results;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import seedfinder.util.BlockPos;
+
+/**
+ * Writes each result as a CSV row. The pearl chest positions all go in the
+ * last column, as <tt>x y z</tt> triples separated by semicolons.
+ */
+public class CsvResultWriter implements ResultWriter {
+
+	private final Writer out;
+
+	public CsvResultWriter(OutputStream out) {
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void writeHeader() throws IOException {
+		out.write("seed,total,eyes,pearls,portal_x,portal_y,portal_z,chests\n");
+	}
+
+	@Override
+	public void write(SeedResult result) throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append(result.getSeed()).append(',');
+		line.append(result.getTotal()).append(',');
+		line.append(result.getEyes()).append(',');
+		line.append(result.getPearls()).append(',');
+		BlockPos portalPos = result.getPortalPos();
+		line.append(portalPos.getX()).append(',');
+		line.append(portalPos.getY()).append(',');
+		line.append(portalPos.getZ()).append(',');
+		List<BlockPos> chests = result.getPearlChestPositions();
+		for (int i = 0; i < chests.size(); i++) {
+			if (i != 0) {
+				line.append(';');
+			}
+			BlockPos pos = chests.get(i);
+			line.append(pos.getX()).append(' ').append(pos.getY()).append(' ').append(pos.getZ());
+		}
+		line.append('\n');
+		out.write(line.toString());
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+}
@@ -0,0 +1,60 @@
+package seedfinder.results;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import seedfinder.util.BlockPos;
+
+/**
+ * Writes each result as a JSON object on its own line, e.g.
+ *
+ * <pre>
+ * {"seed":123,"total":13,"eyes":11,"pearls":2,"portal":{"x":1,"y":2,"z":3},"chests":[{"x":4,"y":5,"z":6}]}
+ * </pre>
+ */
+public class JsonLinesResultWriter implements ResultWriter {
+
+	private final Writer out;
+
+	public JsonLinesResultWriter(OutputStream out) {
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void write(SeedResult result) throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append("{\"seed\":").append(result.getSeed());
+		line.append(",\"total\":").append(result.getTotal());
+		line.append(",\"eyes\":").append(result.getEyes());
+		line.append(",\"pearls\":").append(result.getPearls());
+		line.append(",\"portal\":");
+		appendPos(line, result.getPortalPos());
+		line.append(",\"chests\":[");
+		List<BlockPos> chests = result.getPearlChestPositions();
+		for (int i = 0; i < chests.size(); i++) {
+			if (i != 0) {
+				line.append(',');
+			}
+			appendPos(line, chests.get(i));
+		}
+		line.append("]}\n");
+		out.write(line.toString());
+	}
+
+	private static void appendPos(StringBuilder line, BlockPos pos) {
+		line.append("{\"x\":").append(pos.getX());
+		line.append(",\"y\":").append(pos.getY());
+		line.append(",\"z\":").append(pos.getZ()).append('}');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+}
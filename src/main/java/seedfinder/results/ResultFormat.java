@@ -0,0 +1,41 @@
+package seedfinder.results;
+
+import java.io.OutputStream;
+import java.util.function.Function;
+
+public enum ResultFormat {
+
+	TEXT("text", TextResultWriter::new),
+	JSON_LINES("jsonl", JsonLinesResultWriter::new),
+	CSV("csv", CsvResultWriter::new),
+	BINARY("binary", BinaryResultWriter::new);
+
+	private final String name;
+	private final Function<OutputStream, ResultWriter> writerFactory;
+
+	private ResultFormat(String name, Function<OutputStream, ResultWriter> writerFactory) {
+		this.name = name;
+		this.writerFactory = writerFactory;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ResultWriter createWriter(OutputStream out) {
+		return writerFactory.apply(out);
+	}
+
+	/**
+	 * Gets the format with the given name, or null if there is none
+	 */
+	public static ResultFormat byName(String name) {
+		for (ResultFormat format : values()) {
+			if (format.name.equalsIgnoreCase(name)) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+}
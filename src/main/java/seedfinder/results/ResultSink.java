@@ -0,0 +1,118 @@
+package seedfinder.results;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes results from the search threads and writes them on a background
+ * thread, so that the search threads don't have to wait for the output.
+ * Results are written in batches, and flushed after each batch.
+ */
+public class ResultSink {
+
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final int MAX_BATCH_SIZE = 64;
+	private static final long POLL_INTERVAL = 100;
+
+	private final BlockingQueue<SeedResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final ResultWriter writer;
+	private final Thread thread;
+	private volatile boolean closed = false;
+	private long queuedCount = 0;
+	private long writtenCount = 0;
+
+	public ResultSink(ResultWriter writer) {
+		this.writer = writer;
+		this.thread = new Thread(this::writeResults, "Result writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues a result to be written. This only blocks if the writer has fallen
+	 * a whole queue behind, in which case there is no point searching faster
+	 * than the results can be written.
+	 */
+	public void add(SeedResult result) {
+		synchronized (this) {
+			queuedCount++;
+		}
+		try {
+			queue.put(result);
+		} catch (InterruptedException e) {
+			synchronized (this) {
+				queuedCount--;
+				notifyAll();
+			}
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits until all the results queued so far have been written and
+	 * flushed
+	 */
+	public synchronized void flush() {
+		long target = queuedCount;
+		boolean interrupted = false;
+		while (writtenCount < target && thread.isAlive()) {
+			try {
+				wait(POLL_INTERVAL);
+			} catch (InterruptedException e) {
+				// Whoever is waiting is relying on the results being written
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writeResults() {
+		List<SeedResult> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		while (!closed || !queue.isEmpty()) {
+			try {
+				SeedResult result = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (result == null) {
+					continue;
+				}
+				batch.add(result);
+			} catch (InterruptedException e) {
+				continue;
+			}
+			queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+			try {
+				for (SeedResult result : batch) {
+					writer.write(result);
+				}
+				writer.flush();
+			} catch (IOException e) {
+				System.err.println("Failed to write results");
+				e.printStackTrace();
+			}
+			synchronized (this) {
+				writtenCount += batch.size();
+				notifyAll();
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes all the queued results and stops the writer thread
+	 */
+	public void close() {
+		closed = true;
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+package seedfinder.results;
+
+import java.io.IOException;
+
+/**
+ * Writes results in a particular format. Only ever used from one thread.
+ */
+public interface ResultWriter {
+
+	/**
+	 * Writes anything which goes at the start of a new output
+	 */
+	default void writeHeader() throws IOException {
+	}
+
+	void write(SeedResult result) throws IOException;
+
+	void flush() throws IOException;
+
+}
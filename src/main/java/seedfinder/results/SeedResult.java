@@ -0,0 +1,57 @@
+package seedfinder.results;
+
+import java.util.Collections;
+import java.util.List;
+
+import seedfinder.util.BlockPos;
+
+/**
+ * A stronghold which passed the thresholds
+ */
+public final class SeedResult {
+
+	private final long seed;
+	private final int eyes;
+	private final int pearls;
+	private final BlockPos portalPos;
+	private final List<BlockPos> pearlChestPositions;
+
+	public SeedResult(long seed, int eyes, int pearls, BlockPos portalPos, List<BlockPos> pearlChestPositions) {
+		this.seed = seed;
+		this.eyes = eyes;
+		this.pearls = pearls;
+		this.portalPos = portalPos;
+		this.pearlChestPositions = Collections.unmodifiableList(pearlChestPositions);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getEyes() {
+		return eyes;
+	}
+
+	public int getPearls() {
+		return pearls;
+	}
+
+	public int getTotal() {
+		return eyes + pearls;
+	}
+
+	/**
+	 * The position of the corner of the end portal with the lowest x and z
+	 */
+	public BlockPos getPortalPos() {
+		return portalPos;
+	}
+
+	/**
+	 * The positions of the chests containing ender pearls
+	 */
+	public List<BlockPos> getPearlChestPositions() {
+		return pearlChestPositions;
+	}
+
+}
@@ -0,0 +1,46 @@
+package seedfinder.results;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import seedfinder.util.BlockPos;
+
+/**
+ * Writes results in the human-readable format which the seed finder has
+ * always printed, and which the legacy mode reads
+ */
+public class TextResultWriter implements ResultWriter {
+
+	private final PrintWriter out;
+
+	public TextResultWriter(OutputStream out) {
+		this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)));
+	}
+
+	@Override
+	public void write(SeedResult result) {
+		out.println("-----------------------------");
+		out.println("Seed: " + result.getSeed());
+		out.println("Total: " + result.getTotal());
+		out.println("Eyes: " + result.getEyes());
+		out.println("   In portal at:");
+		out.println("      " + result.getPortalPos());
+		out.println("Pearls: " + result.getPearls());
+		out.println("   In chest(s) at:");
+		for (BlockPos pos : result.getPearlChestPositions()) {
+			out.println("      " + pos);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+		if (out.checkError()) {
+			throw new IOException("Failed to write results");
+		}
+	}
+
+}
@@ -0,0 +1,236 @@
+package seedfinder.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+/**
+ * Keeps track of which work units of a seed range have been searched, so that
+ * a search can be stopped and resumed later. The range is split into units of
+ * a fixed number of seeds, and only the set of completed units is saved, as a
+ * bitset. Units which were in progress when the search stopped aren't
+ * recorded, so are searched again from the start when resuming. A unit must
+ * only be saved as completed once its results have been written, which is
+ * what {@link #setBeforeSave(Runnable)} is for.
+ */
+public class Checkpoint {
+
+	private static final int MAGIC = 0x53464350; // "SFCP"
+	private static final int VERSION = 1;
+
+	private final File file;
+	private final String search;
+	private final long startSeed;
+	private final long endSeed;
+	private final long unitSize;
+	private final int unitCount;
+
+	private final BitSet completedUnits;
+	private final BitSet releasedUnits = new BitSet();
+	private int nextUnit = 0;
+	private boolean dirty = false;
+	private Runnable beforeSave;
+
+	private Checkpoint(File file, String search, long startSeed, long endSeed, long unitSize,
+			BitSet completedUnits) {
+		this.file = file;
+		this.search = search;
+		this.startSeed = startSeed;
+		this.endSeed = endSeed;
+		this.unitSize = unitSize;
+		this.unitCount = (int) (Long.divideUnsigned(endSeed - startSeed - 1, unitSize) + 1);
+		this.completedUnits = completedUnits;
+	}
+
+	/**
+	 * Opens the checkpoint in the given file, or starts a new one if the file
+	 * doesn't exist yet. <tt>search</tt> describes everything else which
+	 * affects the results (mode, thresholds etc.), and must match the one the
+	 * checkpoint was created with, as must the range and unit size.
+	 *
+	 * @param startSeed
+	 *            - the first seed in the range
+	 * @param endSeed
+	 *            - the seed after the last seed in the range
+	 */
+	public static Checkpoint open(File file, String search, long startSeed, long endSeed, long unitSize)
+			throws IOException {
+		if (endSeed <= startSeed) {
+			throw new IllegalArgumentException("Empty seed range");
+		}
+		if (unitSize <= 0) {
+			throw new IllegalArgumentException("Work unit size must be positive");
+		}
+		if (Long.divideUnsigned(endSeed - startSeed - 1, unitSize) >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Seed range is too large");
+		}
+
+		if (!file.exists()) {
+			return new Checkpoint(file, search, startSeed, endSeed, unitSize, new BitSet());
+		}
+
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a checkpoint file: " + file);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported checkpoint version " + version);
+			}
+			if (!search.equals(in.readUTF()) || in.readLong() != startSeed || in.readLong() != endSeed
+					|| in.readLong() != unitSize) {
+				throw new IOException("Checkpoint file " + file + " belongs to a different search");
+			}
+			byte[] bits = new byte[in.readInt()];
+			in.readFully(bits);
+			return new Checkpoint(file, search, startSeed, endSeed, unitSize, BitSet.valueOf(bits));
+		}
+	}
+
+	/**
+	 * Claims the next work unit which hasn't been completed yet, or returns -1
+	 * if there are none left to claim
+	 */
+	public synchronized int claimUnit() {
+		// Units given up by other searchers come first
+		int unit = releasedUnits.nextSetBit(0);
+		if (unit != -1) {
+			releasedUnits.clear(unit);
+			return unit;
+		}
+
+		if (nextUnit >= unitCount) {
+			return -1;
+		}
+		nextUnit = completedUnits.nextClearBit(nextUnit);
+		if (nextUnit >= unitCount) {
+			return -1;
+		}
+		return nextUnit++;
+	}
+
+	/**
+	 * Marks the given work unit as fully searched. It will be saved the next
+	 * time the checkpoint is saved.
+	 */
+	public synchronized void completeUnit(int unit) {
+		completedUnits.set(unit);
+		releasedUnits.clear(unit);
+		dirty = true;
+	}
+
+	/**
+	 * Gives up a claimed work unit without completing it, so that it can be
+	 * claimed again
+	 */
+	public synchronized void releaseUnit(int unit) {
+		if (!completedUnits.get(unit)) {
+			releasedUnits.set(unit);
+		}
+	}
+
+	/**
+	 * Sets what to do before each save, while no units can be completed, such
+	 * as writing out the queued results of the units completed so far
+	 */
+	public synchronized void setBeforeSave(Runnable beforeSave) {
+		this.beforeSave = beforeSave;
+	}
+
+	public String getSearch() {
+		return search;
+	}
+
+	public long getUnitStart(int unit) {
+		return startSeed + unit * unitSize;
+	}
+
+	public long getUnitEnd(int unit) {
+		return unit == unitCount - 1 ? endSeed : getUnitStart(unit + 1);
+	}
+
+	public int getUnitCount() {
+		return unitCount;
+	}
+
+	public synchronized int getCompletedUnitCount() {
+		return completedUnits.cardinality();
+	}
+
+	public synchronized boolean isFinished() {
+		return completedUnits.nextClearBit(0) >= unitCount;
+	}
+
+	/**
+	 * Starts a background thread which saves the checkpoint at the given
+	 * interval, in milliseconds, until it is interrupted
+	 */
+	public Thread startAutoSave(long interval) {
+		Thread thread = new Thread(() -> {
+			while (true) {
+				try {
+					Thread.sleep(interval);
+				} catch (InterruptedException e) {
+					return;
+				}
+				try {
+					saveIfDirty();
+				} catch (IOException e) {
+					System.err.println("Failed to save checkpoint");
+					e.printStackTrace();
+				}
+			}
+		}, "Checkpoint saver");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Saves the checkpoint if any units have been completed since it was last
+	 * saved
+	 */
+	public synchronized void saveIfDirty() throws IOException {
+		if (dirty) {
+			save();
+		}
+	}
+
+	/**
+	 * Saves the checkpoint. It is written to a temporary file first, which
+	 * then replaces the old one, so that the checkpoint file is never left
+	 * half-written if we are killed while saving.
+	 */
+	public synchronized void save() throws IOException {
+		if (beforeSave != null) {
+			beforeSave.run();
+		}
+
+		File tempFile = new File(file.getPath() + ".tmp");
+		try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(search);
+			out.writeLong(startSeed);
+			out.writeLong(endSeed);
+			out.writeLong(unitSize);
+			byte[] bits = completedUnits.toByteArray();
+			out.writeInt(bits.length);
+			out.write(bits);
+			out.flush();
+			fileOut.getFD().sync();
+		}
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		dirty = false;
+	}
+
+}
@@ -0,0 +1,207 @@
+package seedfinder.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import seedfinder.results.SeedResult;
+import seedfinder.util.BlockPos;
+
+/**
+ * Hands out the work units of a checkpoint to {@link Worker}s over TCP, and
+ * collects the results they find.
+ *
+ * <p>
+ * The protocol is line-based text. After the worker sends
+ * <tt>HELLO &lt;version&gt;</tt>, the coordinator replies with
+ * <tt>SEARCH &lt;search&gt;</tt>, where the search is the same description as
+ * is stored in the checkpoint. Then the worker may send:
+ * <ul>
+ * <li><tt>CLAIM</tt>, which is answered with
+ * <tt>UNIT &lt;unit&gt; &lt;start_seed&gt; &lt;end_seed&gt;</tt>, <tt>WAIT</tt>
+ * if the remaining units are all being searched by other workers, or
+ * <tt>DONE</tt>.</li>
+ * <li><tt>COMPLETE &lt;unit&gt;</tt> once it has searched a unit.</li>
+ * <li><tt>RESULT &lt;seed&gt; &lt;eyes&gt; &lt;pearls&gt; &lt;portal_x&gt;
+ * &lt;portal_y&gt; &lt;portal_z&gt; [&lt;chest_x&gt; &lt;chest_y&gt;
+ * &lt;chest_z&gt;]...</tt> for each result it finds.</li>
+ * <li><tt>PING</tt>, to show it is still getting through its unit.</li>
+ * </ul>
+ * If a worker disconnects, or doesn't send anything for
+ * {@link #LEASE_TIMEOUT}, the units it was searching are given to other
+ * workers. Workers only ping while their seeds are being searched, so this
+ * also catches a search which has hung.
+ */
+public class Coordinator {
+
+	static final int PROTOCOL_VERSION = 2;
+	static final String HELLO = "HELLO";
+	static final String SEARCH = "SEARCH";
+	static final String CLAIM = "CLAIM";
+	static final String UNIT = "UNIT";
+	static final String WAIT = "WAIT";
+	static final String DONE = "DONE";
+	static final String COMPLETE = "COMPLETE";
+	static final String RESULT = "RESULT";
+	static final String PING = "PING";
+
+	/**
+	 * How often workers ping the coordinator while searching, in milliseconds.
+	 * A worker which hasn't searched a seed since its last ping skips the
+	 * ping.
+	 */
+	static final long PING_INTERVAL = 30000;
+	/**
+	 * How long the coordinator waits for a message from a worker before
+	 * assuming it is dead or stuck, in milliseconds. This must be longer than
+	 * a single seed takes to search.
+	 */
+	private static final int LEASE_TIMEOUT = 120000;
+	private static final long CHECKPOINT_INTERVAL = 30000;
+
+	private final Checkpoint checkpoint;
+	private final Consumer<SeedResult> resultHandler;
+
+	public Coordinator(Checkpoint checkpoint, Consumer<SeedResult> resultHandler) {
+		this.checkpoint = checkpoint;
+		this.resultHandler = resultHandler;
+	}
+
+	/**
+	 * Listens for workers on the given port, until all the work units in the
+	 * checkpoint have been completed
+	 */
+	public void run(int port) throws IOException, InterruptedException {
+		Thread saveThread = checkpoint.startAutoSave(CHECKPOINT_INTERVAL);
+
+		try (ServerSocket server = new ServerSocket(port)) {
+			Thread acceptThread = new Thread(() -> {
+				while (true) {
+					Socket socket;
+					try {
+						socket = server.accept();
+					} catch (IOException e) {
+						// Server socket closed
+						return;
+					}
+					Thread handlerThread = new Thread(() -> handleWorker(socket),
+							"Worker handler " + socket.getRemoteSocketAddress());
+					handlerThread.setDaemon(true);
+					handlerThread.start();
+				}
+			}, "Worker acceptor");
+			acceptThread.setDaemon(true);
+			acceptThread.start();
+
+			synchronized (this) {
+				while (!checkpoint.isFinished()) {
+					wait();
+				}
+			}
+		}
+
+		saveThread.interrupt();
+		checkpoint.save();
+	}
+
+	private void handleWorker(Socket socket) {
+		// The units this worker is searching, which need to be released if it
+		// dies
+		Set<Integer> units = new HashSet<>();
+
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter out = new PrintWriter(
+						new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+			s.setSoTimeout(LEASE_TIMEOUT);
+
+			String line = in.readLine();
+			if (!(HELLO + " " + PROTOCOL_VERSION).equals(line)) {
+				System.err.println("Rejected worker " + socket.getRemoteSocketAddress() + ": expected \"" + HELLO
+						+ " " + PROTOCOL_VERSION + "\", got \"" + line + "\"");
+				return;
+			}
+			out.println(SEARCH + " " + checkpoint.getSearch());
+			out.flush();
+
+			while ((line = in.readLine()) != null) {
+				String[] parts = line.split(" ");
+				switch (parts[0]) {
+				case PING:
+					break;
+				case CLAIM:
+					int unit = checkpoint.claimUnit();
+					if (unit != -1) {
+						units.add(unit);
+						out.println(UNIT + " " + unit + " " + checkpoint.getUnitStart(unit) + " "
+								+ checkpoint.getUnitEnd(unit));
+					} else if (checkpoint.isFinished()) {
+						out.println(DONE);
+					} else {
+						out.println(WAIT);
+					}
+					out.flush();
+					break;
+				case COMPLETE:
+					unit = Integer.parseInt(parts[1]);
+					units.remove(unit);
+					checkpoint.completeUnit(unit);
+					if (checkpoint.isFinished()) {
+						synchronized (this) {
+							notifyAll();
+						}
+					}
+					break;
+				case RESULT:
+					resultHandler.accept(parseResult(parts));
+					break;
+				default:
+					System.err.println(
+							"Unknown message from worker " + socket.getRemoteSocketAddress() + ": \"" + line + "\"");
+					return;
+				}
+			}
+		} catch (SocketTimeoutException e) {
+			System.err.println("Worker " + socket.getRemoteSocketAddress() + " timed out");
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Lost connection to worker " + socket.getRemoteSocketAddress());
+			e.printStackTrace();
+		} finally {
+			if (!units.isEmpty()) {
+				System.err.println("Re-assigning " + units.size() + " work unit(s) from worker "
+						+ socket.getRemoteSocketAddress());
+				units.forEach(checkpoint::releaseUnit);
+			}
+		}
+	}
+
+	private static SeedResult parseResult(String[] parts) {
+		long seed = Long.parseLong(parts[1]);
+		int eyes = Integer.parseInt(parts[2]);
+		int pearls = Integer.parseInt(parts[3]);
+		BlockPos portalPos = parsePos(parts, 4);
+		List<BlockPos> pearlChestPositions = new ArrayList<>();
+		for (int i = 7; i + 2 < parts.length; i += 3) {
+			pearlChestPositions.add(parsePos(parts, i));
+		}
+		return new SeedResult(seed, eyes, pearls, portalPos, pearlChestPositions);
+	}
+
+	private static BlockPos parsePos(String[] parts, int index) {
+		return new BlockPos(Integer.parseInt(parts[index]), Integer.parseInt(parts[index + 1]),
+				Integer.parseInt(parts[index + 2]));
+	}
+
+}
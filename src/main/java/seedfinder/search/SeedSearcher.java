@@ -0,0 +1,16 @@
+package seedfinder.search;
+
+import java.util.Random;
+
+import seedfinder.util.Storage3D;
+
+/**
+ * Searches a single seed, printing out anything interesting it finds. The RNG
+ * and world are owned by the calling thread and may be re-used between calls.
+ */
+@FunctionalInterface
+public interface SeedSearcher {
+
+	void search(long seed, Random random, Storage3D world);
+
+}
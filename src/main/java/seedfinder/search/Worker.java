@@ -0,0 +1,213 @@
+package seedfinder.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import seedfinder.results.SeedResult;
+import seedfinder.util.BlockPos;
+import seedfinder.util.JavaRandom;
+import seedfinder.util.Storage3D;
+import seedfinder.worldgen.WorldGen;
+
+/**
+ * Searches work units handed out by a {@link Coordinator}. Each search thread
+ * has its own connection to the coordinator, and claims one unit at a time.
+ */
+public class Worker {
+
+	private static final long WAIT_INTERVAL = 5000;
+
+	/**
+	 * The connection of the current search thread, which results are sent back
+	 * through
+	 */
+	private static final ThreadLocal<Connection> CONNECTION = new ThreadLocal<>();
+
+	/**
+	 * Connects to the coordinator and searches until all the units have been
+	 * searched.
+	 *
+	 * @param setUpSearch
+	 *            - sets up the search described by the coordinator, and
+	 *            returns the searcher to use
+	 */
+	public static void run(String host, int port, int threadCount, Function<String, SeedSearcher> setUpSearch)
+			throws IOException, InterruptedException {
+		List<Connection> connections = new ArrayList<>();
+		String search = null;
+		for (int i = 0; i < threadCount; i++) {
+			Connection connection = new Connection(new Socket(host, port));
+			connections.add(connection);
+			if (search == null) {
+				search = connection.search;
+			} else if (!search.equals(connection.search)) {
+				throw new IOException("Coordinator changed search");
+			}
+		}
+		SeedSearcher searcher = setUpSearch.apply(search);
+
+		// Keep the leases of the search threads alive while they are getting
+		// through their units. A search thread which hangs stops being pinged
+		// for, so the coordinator gives its unit to another worker.
+		Thread pingThread = new Thread(() -> {
+			while (true) {
+				try {
+					Thread.sleep(Coordinator.PING_INTERVAL);
+				} catch (InterruptedException e) {
+					return;
+				}
+				connections.forEach(Connection::ping);
+			}
+		}, "Coordinator pinger");
+		pingThread.setDaemon(true);
+		pingThread.start();
+
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			Connection connection = connections.get(i);
+			Thread thread = new Thread(() -> {
+				CONNECTION.set(connection);
+				try {
+					searchUnits(connection, searcher);
+				} catch (IOException e) {
+					System.err.println("Lost connection to coordinator");
+					e.printStackTrace();
+				} finally {
+					connection.close();
+				}
+			}, "Seed finder " + i);
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		pingThread.interrupt();
+	}
+
+	private static void searchUnits(Connection connection, SeedSearcher searcher) throws IOException {
+		Random random = new JavaRandom();
+		Storage3D world = WorldGen.createWorld();
+
+		while (true) {
+			String reply = connection.request(Coordinator.CLAIM);
+			if (reply == null || Coordinator.DONE.equals(reply)) {
+				// The coordinator exits once everything has been searched
+				return;
+			}
+
+			String[] parts = reply.split(" ");
+			if (Coordinator.WAIT.equals(parts[0])) {
+				try {
+					Thread.sleep(WAIT_INTERVAL);
+				} catch (InterruptedException e) {
+					return;
+				}
+			} else if (Coordinator.UNIT.equals(parts[0])) {
+				int unit = Integer.parseInt(parts[1]);
+				long startSeed = Long.parseLong(parts[2]);
+				long endSeed = Long.parseLong(parts[3]);
+				for (long seed = startSeed; seed < endSeed; seed++) {
+					searcher.search(seed, random, world);
+					connection.seedSearched();
+				}
+				connection.send(Coordinator.COMPLETE + " " + unit);
+			} else {
+				throw new IOException("Unexpected reply from coordinator: \"" + reply + "\"");
+			}
+		}
+	}
+
+	/**
+	 * Sends a result found by the current search thread to the coordinator
+	 */
+	public static void sendResult(SeedResult result) {
+		StringBuilder message = new StringBuilder(Coordinator.RESULT);
+		message.append(' ').append(result.getSeed());
+		message.append(' ').append(result.getEyes());
+		message.append(' ').append(result.getPearls());
+		appendPos(message, result.getPortalPos());
+		result.getPearlChestPositions().forEach(pos -> appendPos(message, pos));
+		CONNECTION.get().send(message.toString());
+	}
+
+	private static void appendPos(StringBuilder message, BlockPos pos) {
+		message.append(' ').append(pos.getX()).append(' ').append(pos.getY()).append(' ').append(pos.getZ());
+	}
+
+	private static class Connection {
+		private final Socket socket;
+		private final BufferedReader in;
+		private final PrintWriter out;
+		private final String search;
+		/**
+		 * The number of seeds the search thread has searched, and how many it
+		 * had searched at the last ping
+		 */
+		private volatile long seedsSearched = 0;
+		private long pingedSeedsSearched = 0;
+
+		public Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+			out.println(Coordinator.HELLO + " " + Coordinator.PROTOCOL_VERSION);
+			out.flush();
+			String line = in.readLine();
+			if (line == null || !line.startsWith(Coordinator.SEARCH + " ")) {
+				throw new IOException("Unexpected handshake from coordinator: \"" + line + "\"");
+			}
+			this.search = line.substring(Coordinator.SEARCH.length() + 1);
+		}
+
+		public synchronized void send(String message) {
+			out.println(message);
+			out.flush();
+		}
+
+		/**
+		 * Sends a message and waits for the reply. Only the search thread of
+		 * this connection reads from it, so the reply can't be stolen.
+		 */
+		public String request(String message) throws IOException {
+			send(message);
+			return in.readLine();
+		}
+
+		public void seedSearched() {
+			seedsSearched++;
+		}
+
+		/**
+		 * Pings the coordinator if the search thread has searched any seeds
+		 * since the last ping. Between units, its claims keep the lease alive
+		 * instead.
+		 */
+		public void ping() {
+			long seeds = seedsSearched;
+			if (seeds != pingedSeedsSearched) {
+				pingedSeedsSearched = seeds;
+				send(Coordinator.PING);
+			}
+		}
+
+		public void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+}
@@ -0,0 +1,243 @@
+package seedfinder.stats;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how many seeds are searched, and how long each stage of the search
+ * takes and how much it lets through. The counters are cheap enough to always
+ * be on, and can be shared by all the search threads without contention.
+ */
+public class SearchStats {
+
+	/**
+	 * The highest number of eyes a portal can have
+	 */
+	public static final int MAX_EYES = 12;
+
+	private static final LongAdder seeds = new LongAdder();
+	private static final LongAdder[] calls = createAdders(Stage.values().length);
+	private static final LongAdder[] passed = createAdders(Stage.values().length);
+	private static final LongAdder[] nanos = createAdders(Stage.values().length);
+	private static final LongAdder[] eyeCounts = createAdders(MAX_EYES + 1);
+
+	/**
+	 * Records the stats as JFR events, or null if the JVM doesn't have JFR
+	 */
+	private static final EventRecorder EVENT_RECORDER = createEventRecorder();
+
+	private SearchStats() {
+	}
+
+	private static LongAdder[] createAdders(int count) {
+		LongAdder[] adders = new LongAdder[count];
+		for (int i = 0; i < count; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	// StatsEvents is only loaded by name, once we know the JVM has JFR, so
+	// that nothing links against JFR on JVMs without it
+	private static EventRecorder createEventRecorder() {
+		try {
+			Class.forName("jdk.jfr.Event");
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+		try {
+			return (EventRecorder) Class.forName("seedfinder.stats.StatsEvents").getDeclaredConstructor()
+					.newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	public static void addSeed() {
+		seeds.increment();
+	}
+
+	/**
+	 * Returns the start time of a stage, to be passed to
+	 * {@link #endStage(Stage, long, boolean)}
+	 */
+	public static long startStage() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a run of the given stage, and whether it let the stronghold
+	 * through to the next stage
+	 */
+	public static void endStage(Stage stage, long startTime, boolean pass) {
+		int index = stage.ordinal();
+		nanos[index].add(System.nanoTime() - startTime);
+		calls[index].increment();
+		if (pass) {
+			passed[index].increment();
+		}
+	}
+
+	/**
+	 * Records the inaccurate number of eyes of a stronghold
+	 */
+	public static void addEyeCount(int eyes) {
+		eyeCounts[Math.min(Math.max(eyes, 0), MAX_EYES)].increment();
+	}
+
+	/**
+	 * Takes a snapshot of the counters so far
+	 */
+	public static Snapshot snapshot() {
+		Stage[] stages = Stage.values();
+		long[] stageCalls = new long[stages.length];
+		long[] stagePassed = new long[stages.length];
+		long[] stageNanos = new long[stages.length];
+		for (int i = 0; i < stages.length; i++) {
+			stageCalls[i] = calls[i].sum();
+			stagePassed[i] = passed[i].sum();
+			stageNanos[i] = nanos[i].sum();
+		}
+		long[] eyes = new long[MAX_EYES + 1];
+		for (int i = 0; i <= MAX_EYES; i++) {
+			eyes[i] = eyeCounts[i].sum();
+		}
+		return new Snapshot(System.nanoTime(), seeds.sum(), stageCalls, stagePassed, stageNanos, eyes);
+	}
+
+	/**
+	 * Starts a background thread which prints a report to the given stream at
+	 * the given interval, in milliseconds. The numbers are also recorded as
+	 * JFR events, if the JVM supports them.
+	 */
+	public static void startReporting(long interval, PrintStream out) {
+		Thread thread = new Thread(() -> {
+			Snapshot start = snapshot();
+			Snapshot last = start;
+			while (true) {
+				try {
+					Thread.sleep(interval);
+				} catch (InterruptedException e) {
+					return;
+				}
+				Snapshot now = snapshot();
+				synchronized (out) {
+					now.printReport(out, start, last);
+					out.flush();
+				}
+				if (EVENT_RECORDER != null) {
+					EVENT_RECORDER.commit(now, last);
+				}
+				last = now;
+			}
+		}, "Stats reporter");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Records the changes between two snapshots somewhere other than the
+	 * report
+	 */
+	static interface EventRecorder {
+		void commit(Snapshot now, Snapshot last);
+	}
+
+	public static enum Stage {
+		LAND_PREFILTER("Land prefilter"),
+		FIRST_LAYER("Stronghold positions"),
+		INACCURATE_EYES("Inaccurate eyes"),
+		ACCURATE_EYES("Accurate eyes"),
+		CHEST_POPULATION("Chest population"),
+		CHEST_LOOT("Chest loot");
+
+		private final String name;
+
+		private Stage(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	/**
+	 * The values of the counters at some point in time
+	 */
+	public static class Snapshot {
+		private final long time;
+		private final long seeds;
+		private final long[] calls;
+		private final long[] passed;
+		private final long[] nanos;
+		private final long[] eyeCounts;
+
+		private Snapshot(long time, long seeds, long[] calls, long[] passed, long[] nanos, long[] eyeCounts) {
+			this.time = time;
+			this.seeds = seeds;
+			this.calls = calls;
+			this.passed = passed;
+			this.nanos = nanos;
+			this.eyeCounts = eyeCounts;
+		}
+
+		public long getSeeds() {
+			return seeds;
+		}
+
+		public long getCalls(Stage stage) {
+			return calls[stage.ordinal()];
+		}
+
+		public long getPassed(Stage stage) {
+			return passed[stage.ordinal()];
+		}
+
+		public long getNanos(Stage stage) {
+			return nanos[stage.ordinal()];
+		}
+
+		public long getEyeCount(int eyes) {
+			return eyeCounts[eyes];
+		}
+
+		/**
+		 * The number of seeds per second since the given snapshot
+		 */
+		public double getSeedsPerSecond(Snapshot since) {
+			long elapsed = time - since.time;
+			return elapsed == 0 ? 0 : (seeds - since.seeds) * 1e9 / elapsed;
+		}
+
+		/**
+		 * Prints the throughput since the start and since the last report, and
+		 * the totals of everything else
+		 */
+		public void printReport(PrintStream out, Snapshot start, Snapshot last) {
+			out.printf("Stats: %d seeds, %.1f seeds/s (%.1f seeds/s overall)%n", seeds - start.seeds,
+					getSeedsPerSecond(last), getSeedsPerSecond(start));
+
+			long totalNanos = 0;
+			for (long stageNanos : nanos) {
+				totalNanos += stageNanos;
+			}
+			for (Stage stage : Stage.values()) {
+				long stageCalls = getCalls(stage);
+				if (stageCalls == 0) {
+					continue;
+				}
+				out.printf("  %-20s %10d runs, %8.3f ms/run, %5.1f%% of time, %5.1f%% rejected%n", stage.getName(),
+						stageCalls, getNanos(stage) / 1e6 / stageCalls, 100.0 * getNanos(stage) / totalNanos,
+						100.0 * (stageCalls - getPassed(stage)) / stageCalls);
+			}
+
+			StringBuilder histogram = new StringBuilder("  Inaccurate eyes:");
+			for (int eyes = 0; eyes <= MAX_EYES; eyes++) {
+				histogram.append(' ').append(eyes).append('=').append(eyeCounts[eyes]);
+			}
+			out.println(histogram);
+		}
+	}
+
+}
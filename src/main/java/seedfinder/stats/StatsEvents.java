@@ -0,0 +1,69 @@
+package seedfinder.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events recording the search stats. This class is only loaded, by name,
+ * if the JVM has JFR, which Java 8 only has from 8u262. Compiling it needs a
+ * JDK with JFR too.
+ */
+class StatsEvents implements SearchStats.EventRecorder {
+
+	/**
+	 * Commits the changes between two snapshots as events
+	 */
+	@Override
+	public void commit(SearchStats.Snapshot now, SearchStats.Snapshot last) {
+		ThroughputEvent throughput = new ThroughputEvent();
+		if (throughput.isEnabled()) {
+			throughput.seeds = now.getSeeds() - last.getSeeds();
+			throughput.seedsPerSecond = now.getSeedsPerSecond(last);
+			throughput.commit();
+		}
+
+		for (SearchStats.Stage stage : SearchStats.Stage.values()) {
+			StageEvent event = new StageEvent();
+			if (!event.isEnabled()) {
+				break;
+			}
+			event.stage = stage.getName();
+			event.runs = now.getCalls(stage) - last.getCalls(stage);
+			event.passed = now.getPassed(stage) - last.getPassed(stage);
+			event.time = now.getNanos(stage) - last.getNanos(stage);
+			event.commit();
+		}
+	}
+
+	@Name("seedfinder.Throughput")
+	@Label("Seed Finder Throughput")
+	@Category("Seed Finder")
+	@Description("Seeds searched since the last report")
+	static class ThroughputEvent extends Event {
+		@Label("Seeds")
+		long seeds;
+		@Label("Seeds per Second")
+		double seedsPerSecond;
+	}
+
+	@Name("seedfinder.Stage")
+	@Label("Seed Finder Stage")
+	@Category("Seed Finder")
+	@Description("Runs of a search stage since the last report")
+	static class StageEvent extends Event {
+		@Label("Stage")
+		String stage;
+		@Label("Runs")
+		long runs;
+		@Label("Passed")
+		long passed;
+		@Label("Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long time;
+	}
+
+}
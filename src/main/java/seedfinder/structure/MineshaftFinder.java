@@ -8,7 +8,12 @@ import seedfinder.util.ChunkPos;
 
 public class MineshaftFinder extends StructureFinder {
 
-	public static final MineshaftFinder INSTANCE = new MineshaftFinder();
+	// Finders cache structures for the current seed, so each thread has its own
+	private static final ThreadLocal<MineshaftFinder> INSTANCE = ThreadLocal.withInitial(MineshaftFinder::new);
+
+	public static MineshaftFinder getInstance() {
+		return INSTANCE.get();
+	}
 
 	private MineshaftFinder() {
 	}
@@ -3,9 +3,12 @@ package seedfinder.structure;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.Set;
+import java.util.function.IntPredicate;
 
+import seedfinder.Blocks;
+import seedfinder.biome.BiomeDepth;
 import seedfinder.biome.BiomeProvider;
+import seedfinder.biome.BiomeSet;
 import seedfinder.biome.Biomes;
 import seedfinder.task.CountEyesTask;
 import seedfinder.task.DoneEnoughException;
@@ -13,16 +16,34 @@ import seedfinder.task.Task;
 import seedfinder.util.AABB;
 import seedfinder.util.BlockPos;
 import seedfinder.util.ChunkPos;
+import seedfinder.util.NoOpStorage3D;
 import seedfinder.util.Storage3D;
 import seedfinder.worldgen.WorldGen;
 
 public class StrongholdFinder extends StructureFinder {
 
-	public static final StrongholdFinder INSTANCE = new StrongholdFinder();
+	// Finders cache structures for the current seed, so each thread has its own
+	private static final ThreadLocal<StrongholdFinder> INSTANCE = ThreadLocal.withInitial(StrongholdFinder::new);
 
 	public static final int NUM_STRONGHOLDS = 128;
 
-	private static final Set<Integer> ALLOWED_BIOMES = Biomes.allBiomesExcept(it -> Biomes.getBaseHeight(it) <= 0);
+	private static final BiomeSet ALLOWED_BIOMES = Biomes.allBiomesExcept(it -> Biomes.getBaseHeight(it) <= 0);
+	/**
+	 * How far a stronghold can be moved from its initial position to get it
+	 * into an allowed biome, in blocks
+	 */
+	private static final int BIOME_CORRECTION_RANGE = 112;
+
+	/**
+	 * The stronghold is placed into this world for the dry run eye count. It
+	 * pretends everything is stone, as if there were no caves or water around
+	 * the stronghold.
+	 */
+	private static final Storage3D DRY_RUN_WORLD = new NoOpStorage3D(Blocks.STONE);
+
+	public static StrongholdFinder getInstance() {
+		return INSTANCE.get();
+	}
 
 	private StrongholdFinder() {
 	}
@@ -33,6 +54,58 @@ public class StrongholdFinder extends StructureFinder {
 		findStructurePositions(rand, seed, new ChunkPos(-80, -80), new ChunkPos(80, 80));
 	}
 
+	/**
+	 * Returns whether any stronghold in the first layer might be moved onto
+	 * land by the biome correction, judging by the biomes at the given depth.
+	 * This is much cheaper than finding the positions when a coarse depth is
+	 * used, but the coarse depths miss islands which only appear in the later
+	 * layers, so may reject a few seeds which do have a stronghold on land.
+	 */
+	public boolean mayHaveFirstLayerOnLand(Random rand, long seed, BiomeDepth depth) {
+		rand.setSeed(seed);
+
+		final double distance = 32;
+		final int spread = 3;
+
+		// The land and ocean layer only has climates, ocean, deep ocean and
+		// mushroom islands, whose IDs are land or ocean biomes
+		IntPredicate isLand = value -> ALLOWED_BIOMES.contains(value & 0xff);
+
+		double strongholdAngle = rand.nextDouble() * Math.PI * 2;
+
+		// Only the first stronghold's distance is known, as the biome
+		// correction uses a varying amount of randomness. The others could be
+		// anywhere along their angle.
+		double firstDistance = 4 * distance + (rand.nextDouble() - 0.5) * distance * 2.5;
+		double minDistance = 4 * distance - 0.5 * distance * 2.5;
+		double maxDistance = 4 * distance + 0.5 * distance * 2.5;
+
+		for (int i = 0; i < spread; i++) {
+			double cos = Math.cos(strongholdAngle);
+			double sin = Math.sin(strongholdAngle);
+			int minChunkX, minChunkZ, maxChunkX, maxChunkZ;
+			if (i == 0) {
+				minChunkX = maxChunkX = (int) Math.round(cos * firstDistance);
+				minChunkZ = maxChunkZ = (int) Math.round(sin * firstDistance);
+			} else {
+				minChunkX = (int) Math.floor(Math.min(cos * minDistance, cos * maxDistance));
+				minChunkZ = (int) Math.floor(Math.min(sin * minDistance, sin * maxDistance));
+				maxChunkX = (int) Math.ceil(Math.max(cos * minDistance, cos * maxDistance));
+				maxChunkZ = (int) Math.ceil(Math.max(sin * minDistance, sin * maxDistance));
+			}
+
+			if (BiomeProvider.anyCellMatches(depth, (minChunkX << 4) + 8 - BIOME_CORRECTION_RANGE,
+					(minChunkZ << 4) + 8 - BIOME_CORRECTION_RANGE, (maxChunkX << 4) + 8 + BIOME_CORRECTION_RANGE,
+					(maxChunkZ << 4) + 8 + BIOME_CORRECTION_RANGE, isLand)) {
+				return true;
+			}
+
+			strongholdAngle += Math.PI * 2 / spread;
+		}
+
+		return false;
+	}
+
 	@Override
 	public boolean isStructureAt(Random rand, long worldSeed, ChunkPos pos) {
 		findStructurePositions(rand, worldSeed, pos, pos);
@@ -71,8 +144,8 @@ public class StrongholdFinder extends StructureFinder {
 				int chunkZ = (int) Math.round(Math.sin(strongholdAngle) * strongholdDistance);
 
 				// Correct position based on biomes
-				BlockPos biomePos = BiomeProvider.findBiomePosition((chunkX << 4) + 8, (chunkZ << 4) + 8, 112,
-						ALLOWED_BIOMES, rand);
+				BlockPos biomePos = BiomeProvider.findBiomePosition((chunkX << 4) + 8, (chunkZ << 4) + 8,
+						BIOME_CORRECTION_RANGE, ALLOWED_BIOMES, rand);
 				if (biomePos != null) {
 					chunkX = biomePos.getX() >> 4;
 					chunkZ = biomePos.getZ() >> 4;
@@ -96,7 +169,9 @@ public class StrongholdFinder extends StructureFinder {
 	}
 
 	/**
-	 * Gets the number of eyes of the stronghold at the given location
+	 * Gets the number of eyes of the stronghold at the given location. If not
+	 * accurate, the terrain around the portal is generated without the
+	 * neighbouring chunks being populated first.
 	 */
 	public int getNumEyes(Storage3D world, Random rand, long seed, ChunkPos location, boolean accurate) {
 		WorldGen.setMapGenSeedForChunk(rand, seed, location.getX(), location.getZ());
@@ -106,6 +181,23 @@ public class StrongholdFinder extends StructureFinder {
 		return task.orElseThrow(AssertionError::new).getEyes();
 	}
 
+	/**
+	 * Estimates the number of eyes of the stronghold at the given location
+	 * without generating any terrain, as if the stronghold were in solid
+	 * stone. This only depends on the lower 48 bits of the seed, but caves and
+	 * water change which random calls the stronghold makes, so it misses more
+	 * eyes than the inaccurate count of
+	 * {@link #getNumEyes(Storage3D, Random, long, ChunkPos, boolean)}.
+	 */
+	public int getDryRunNumEyes(Random rand, long seed, ChunkPos location) {
+		WorldGen.setMapGenSeedForChunk(rand, seed, location.getX(), location.getZ());
+		Stronghold stronghold = (Stronghold) getStructure(rand, location);
+		Task.setCurrentTask(new CountEyesTask());
+		populatePortalChunks(DRY_RUN_WORLD, rand, seed, stronghold);
+		Optional<CountEyesTask> task = Task.getCurrentTask(Task.Type.COUNT_EYES);
+		return task.orElseThrow(AssertionError::new).getEyes();
+	}
+
 	@Override
 	public Stronghold createStructure(Random rand, ChunkPos location) {
 		rand.nextInt(); // why? idk, but we must conform to Minecraft...
@@ -126,30 +218,29 @@ public class StrongholdFinder extends StructureFinder {
 
 		BlockPos minPortalPos = stronghold.getPortalRoom().getPortalPos();
 		BlockPos maxPortalPos = minPortalPos.add(4, 0, 4);
+		AABB portalBounds = new AABB(minPortalPos.getX(), 0, minPortalPos.getZ(), maxPortalPos.getX(), 255,
+				maxPortalPos.getZ());
 		if (accurate) {
-			WorldGen.createAndPopulateBBOverworld(world, rand, worldSeed, new AABB(minPortalPos.getX(), 0,
-					minPortalPos.getZ(), maxPortalPos.getX(), 255, maxPortalPos.getZ()));
+			WorldGen.createAndPopulateBBOverworld(world, rand, worldSeed, portalBounds);
 			return;
 		}
+
+		// Generate the chunks, leaving them in the chunk cache for the
+		// accurate count
+		WorldGen.createBBOverworld(world, rand, worldSeed, portalBounds);
+
+		populatePortalChunks(world, rand, worldSeed, stronghold);
+	}
+
+	// Populates the chunks around the end portal (all we do is the stronghold)
+	private static void populatePortalChunks(Storage3D world, Random rand, long worldSeed, Stronghold stronghold) {
+		BlockPos minPortalPos = stronghold.getPortalRoom().getPortalPos();
+		BlockPos maxPortalPos = minPortalPos.add(4, 0, 4);
 		int minChunkX = minPortalPos.getX() - 8 >> 4;
 		int minChunkZ = minPortalPos.getZ() - 8 >> 4;
 		int maxChunkX = maxPortalPos.getX() - 8 >> 4;
 		int maxChunkZ = maxPortalPos.getZ() - 8 >> 4;
-		int minX = minChunkX << 4;
-		int minZ = minChunkZ << 4;
-
-		// A 3x3 chunk area is the maximum number of chunks that might be
-		// generated
-		world.reallocate(minX, 0, minZ, minX + 47, 255, minZ + 47);
-
-		// Generate the chunks
-		for (int chunkX = minChunkX; chunkX <= maxChunkX + 1; chunkX++) {
-			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ + 1; chunkZ++) {
-				WorldGen.createOverworld(rand, worldSeed, chunkX, chunkZ, world);
-			}
-		}
 
-		// Populate the chunks (all we do is the stronghold)
 		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
 			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
 				try {
@@ -21,54 +21,57 @@ public class StrongholdGen {
 	private StrongholdGen() {
 	}
 
-	// @formatter:off
-	private static final PoolEntry[] POOL_ENTRIES = new PoolEntry[] {
-			new PoolEntry(Straight::create, 40, 0),
-			new PoolEntry(Prison::create, 5, 5),
-			new PoolEntry(LeftTurn::create, 20, 0),
-			new PoolEntry(RightTurn::create, 20, 0),
-			new PoolEntry(RoomCrossing::create, 10, 6),
-			new PoolEntry(StairsStraight::create, 5, 5),
-			new PoolEntry(Stairs::create, 5, 5),
-			new PoolEntry(Crossing::create, 5, 4),
-			new PoolEntry(ChestCorridor::create, 5, 4),
-			new PoolEntry(Library::create, 10, 2) {
-				@Override
-				public boolean canAddAtDistance(int distanceFromStart) {
-					return super.canAddAtDistance(distanceFromStart) && distanceFromStart > 4;
-				}
-			},
-			new PoolEntry(PortalRoom::create, 20, 1) {
-				@Override
-				public boolean canAddAtDistance(int distanceFromStart) {
-					return super.canAddAtDistance(distanceFromStart) && distanceFromStart > 5;
+	// Each thread needs its own pool, since it counts the components created
+	private static final ThreadLocal<ComponentPool> POOL = ThreadLocal.withInitial(ComponentPool::new);
+
+	private static final ThreadLocal<StoneGenerator> STONE_GEN = ThreadLocal.withInitial(StoneGenerator::new);
+
+	private static PoolEntry[] createPoolEntries() {
+		// @formatter:off
+		return new PoolEntry[] {
+				new PoolEntry(Straight::create, 40, 0),
+				new PoolEntry(Prison::create, 5, 5),
+				new PoolEntry(LeftTurn::create, 20, 0),
+				new PoolEntry(RightTurn::create, 20, 0),
+				new PoolEntry(RoomCrossing::create, 10, 6),
+				new PoolEntry(StairsStraight::create, 5, 5),
+				new PoolEntry(Stairs::create, 5, 5),
+				new PoolEntry(Crossing::create, 5, 4),
+				new PoolEntry(ChestCorridor::create, 5, 4),
+				new PoolEntry(Library::create, 10, 2) {
+					@Override
+					public boolean canAddAtDistance(int distanceFromStart) {
+						return super.canAddAtDistance(distanceFromStart) && distanceFromStart > 4;
+					}
+				},
+				new PoolEntry(PortalRoom::create, 20, 1) {
+					@Override
+					public boolean canAddAtDistance(int distanceFromStart) {
+						return super.canAddAtDistance(distanceFromStart) && distanceFromStart > 5;
+					}
 				}
-			}
-		};
-	// @formatter:on
-	private static List<PoolEntry> componentTypePool;
-	private static ComponentCreator nextComponentCreator;
-	private static int totalWeight;
-
-	private static final StoneGenerator STONE_GEN = new StoneGenerator();
+			};
+		// @formatter:on
+	}
 
 	public static void prepareStructurePieces() {
-		componentTypePool = new ArrayList<>();
+		ComponentPool pool = POOL.get();
+		pool.componentTypePool = new ArrayList<>();
 
-		for (PoolEntry pieceWeight : POOL_ENTRIES) {
+		for (PoolEntry pieceWeight : pool.entries) {
 			pieceWeight.amtCreated = 0;
-			componentTypePool.add(pieceWeight);
+			pool.componentTypePool.add(pieceWeight);
 		}
 
-		nextComponentCreator = null;
+		pool.nextComponentCreator = null;
 	}
 
-	private static void recalcTotalWeight() {
-		totalWeight = componentTypePool.stream().mapToInt(it -> it.weight).sum();
+	private static void recalcTotalWeight(ComponentPool pool) {
+		pool.totalWeight = pool.componentTypePool.stream().mapToInt(it -> it.weight).sum();
 	}
 
-	private static boolean canAddMoreComponents() {
-		return componentTypePool.stream().anyMatch(it -> it.limit > 0 && it.amtCreated < it.limit);
+	private static boolean canAddMoreComponents(ComponentPool pool) {
+		return pool.componentTypePool.stream().anyMatch(it -> it.limit > 0 && it.amtCreated < it.limit);
 	}
 
 	/**
@@ -77,17 +80,18 @@ public class StrongholdGen {
 	 */
 	private static StrongholdComponent nextRandomComponent(StartingStairs startComponent, List<Component> components,
 			Random rand, int x, int y, int z, EnumFacing facing, int distanceFromStart) {
-		recalcTotalWeight();
+		ComponentPool pool = POOL.get();
+		recalcTotalWeight(pool);
 
-		if (!canAddMoreComponents()) {
+		if (!canAddMoreComponents(pool)) {
 			return null;
 		}
 
 		// Check if next component was already decided
-		if (nextComponentCreator != null) {
-			StrongholdComponent component = nextComponentCreator.create(components, rand, x, y, z, facing,
+		if (pool.nextComponentCreator != null) {
+			StrongholdComponent component = pool.nextComponentCreator.create(components, rand, x, y, z, facing,
 					distanceFromStart);
-			nextComponentCreator = null;
+			pool.nextComponentCreator = null;
 
 			if (component != null) {
 				return component;
@@ -97,9 +101,9 @@ public class StrongholdGen {
 		// Choose a new component to add
 		for (int tries = 0; tries < 5; tries++) {
 
-			int randNum = rand.nextInt(totalWeight);
+			int randNum = rand.nextInt(pool.totalWeight);
 
-			for (PoolEntry entry : componentTypePool) {
+			for (PoolEntry entry : pool.componentTypePool) {
 				randNum -= entry.weight;
 
 				if (randNum < 0) {
@@ -120,7 +124,7 @@ public class StrongholdGen {
 						startComponent.lastComponentTypeCreated = entry;
 
 						if (!entry.canAddMore()) {
-							componentTypePool.remove(entry);
+							pool.componentTypePool.remove(entry);
 						}
 
 						return component;
@@ -201,7 +205,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 6, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 6, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 1, 0);
 			// exit door
@@ -385,7 +389,7 @@ public class StrongholdGen {
 			}
 
 			// outer walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 9, 8, 10, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 9, 8, 10, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 4, 3, 0);
 
@@ -412,19 +416,19 @@ public class StrongholdGen {
 			// air in underpass
 			fillWithBlocks(world, bounds, 5, 1, 10, 7, 3, 10, Blocks.AIR, Blocks.AIR, false);
 			// slightly raised floor in front half
-			fillWithRandomizedBlocks(world, bounds, 1, 2, 1, 8, 2, 6, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 1, 2, 1, 8, 2, 6, false, rand, STONE_GEN.get());
 			// left wall of underpass
-			fillWithRandomizedBlocks(world, bounds, 4, 1, 5, 4, 4, 9, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 4, 1, 5, 4, 4, 9, false, rand, STONE_GEN.get());
 			// right wall of underpass
-			fillWithRandomizedBlocks(world, bounds, 8, 1, 5, 8, 4, 9, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 8, 1, 5, 8, 4, 9, false, rand, STONE_GEN.get());
 			// platform next to bridge
-			fillWithRandomizedBlocks(world, bounds, 1, 4, 7, 3, 4, 9, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 1, 4, 7, 3, 4, 9, false, rand, STONE_GEN.get());
 			// stairs to bridge
-			fillWithRandomizedBlocks(world, bounds, 1, 3, 5, 3, 3, 6, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 1, 3, 5, 3, 3, 6, false, rand, STONE_GEN.get());
 			fillWithBlocks(world, bounds, 1, 3, 4, 3, 3, 4, Blocks.STONE_SLAB, Blocks.STONE_SLAB, false);
 			fillWithBlocks(world, bounds, 1, 4, 6, 3, 4, 6, Blocks.STONE_SLAB, Blocks.STONE_SLAB, false);
 			// stairs in underpass
-			fillWithRandomizedBlocks(world, bounds, 5, 1, 7, 7, 1, 8, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 5, 1, 7, 7, 1, 8, false, rand, STONE_GEN.get());
 			fillWithBlocks(world, bounds, 5, 1, 9, 7, 1, 9, Blocks.STONE_SLAB, Blocks.STONE_SLAB, false);
 			fillWithBlocks(world, bounds, 5, 2, 7, 7, 2, 7, Blocks.STONE_SLAB, Blocks.STONE_SLAB, false);
 			// bridge
@@ -477,7 +481,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 4, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 4, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 1, 0);
 
@@ -534,7 +538,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 13, height - 1, 14, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 13, height - 1, 14, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 4, 1, 0);
 			// cobwebs
@@ -675,23 +679,23 @@ public class StrongholdGen {
 		@Override
 		public boolean placeInWorld(Storage3D world, Random rand, AABB bounds) {
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 10, 7, 15, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 10, 7, 15, false, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, DoorType.GRATES, 4, 1, 0);
 
 			// rim around ceiling
-			fillWithRandomizedBlocks(world, bounds, 1, 6, 1, 1, 6, 14, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 9, 6, 1, 9, 6, 14, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 2, 6, 1, 8, 6, 2, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 2, 6, 14, 8, 6, 14, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 1, 6, 1, 1, 6, 14, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 9, 6, 1, 9, 6, 14, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 2, 6, 1, 8, 6, 2, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 2, 6, 14, 8, 6, 14, false, rand, STONE_GEN.get());
 			// stone around lava on left and right
-			fillWithRandomizedBlocks(world, bounds, 1, 1, 1, 2, 1, 4, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 8, 1, 1, 9, 1, 4, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 1, 1, 1, 2, 1, 4, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 8, 1, 1, 9, 1, 4, false, rand, STONE_GEN.get());
 			// lava on left and right
 			fillWithBlocks(world, bounds, 1, 1, 1, 1, 1, 3, Blocks.FLOWING_LAVA, Blocks.FLOWING_LAVA, false);
 			fillWithBlocks(world, bounds, 9, 1, 1, 9, 1, 3, Blocks.FLOWING_LAVA, Blocks.FLOWING_LAVA, false);
 			// stone around lava under portal
-			fillWithRandomizedBlocks(world, bounds, 3, 1, 8, 7, 1, 12, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 3, 1, 8, 7, 1, 12, false, rand, STONE_GEN.get());
 			// lava under portal
 			fillWithBlocks(world, bounds, 4, 1, 9, 6, 1, 11, Blocks.FLOWING_LAVA, Blocks.FLOWING_LAVA, false);
 
@@ -707,9 +711,9 @@ public class StrongholdGen {
 			}
 
 			// stairs
-			fillWithRandomizedBlocks(world, bounds, 4, 1, 5, 6, 1, 7, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 4, 2, 6, 6, 2, 7, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 4, 3, 7, 6, 3, 7, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 4, 1, 5, 6, 1, 7, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 4, 2, 6, 6, 2, 7, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 4, 3, 7, 6, 3, 7, false, rand, STONE_GEN.get());
 			for (int x = 4; x <= 6; x++) {
 				setBlock(world, Blocks.STONE_BRICK_STAIRS, x, 1, 4, bounds);
 				setBlock(world, Blocks.STONE_BRICK_STAIRS, x, 2, 5, bounds);
@@ -814,16 +818,16 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 8, 4, 10, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 8, 4, 10, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 1, 0);
 			// fill cells with air
 			fillWithBlocks(world, bounds, 1, 1, 10, 3, 3, 10, Blocks.AIR, Blocks.AIR, false);
 			// supports for cells
-			fillWithRandomizedBlocks(world, bounds, 4, 1, 1, 4, 3, 1, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 4, 1, 3, 4, 3, 3, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 4, 1, 7, 4, 3, 7, false, rand, STONE_GEN);
-			fillWithRandomizedBlocks(world, bounds, 4, 1, 9, 4, 3, 9, false, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 4, 1, 1, 4, 3, 1, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 4, 1, 3, 4, 3, 3, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 4, 1, 7, 4, 3, 7, false, rand, STONE_GEN.get());
+			fillWithRandomizedBlocks(world, bounds, 4, 1, 9, 4, 3, 9, false, rand, STONE_GEN.get());
 			// bars separating corridor from cells
 			fillWithBlocks(world, bounds, 4, 1, 4, 4, 3, 6, Blocks.IRON_BARS, Blocks.IRON_BARS, false);
 			// bars separating cells
@@ -864,7 +868,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 4, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 4, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 1, 0);
 
@@ -915,7 +919,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 10, 6, 10, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 10, 6, 10, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 4, 1, 0);
 			// clear openings on exits
@@ -1086,7 +1090,7 @@ public class StrongholdGen {
 		public void addMoreComponents(Component startComponent, List<Component> components, Random rand) {
 			if (source) {
 				// Always start off with a crossing after the start
-				nextComponentCreator = Crossing::create;
+				POOL.get().nextComponentCreator = Crossing::create;
 			}
 
 			addComponentAhead((StartingStairs) startComponent, components, rand, 1, 1);
@@ -1110,7 +1114,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 10, 4, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 10, 4, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 7, 0);
 			// exit door
@@ -1180,7 +1184,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 10, 7, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 10, 7, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 7, 0);
 			// exit door
@@ -1252,7 +1256,7 @@ public class StrongholdGen {
 			}
 
 			// walls
-			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 6, true, rand, STONE_GEN);
+			fillWithRandomizedBlocks(world, bounds, 0, 0, 0, 4, 4, 6, true, rand, STONE_GEN.get());
 			// entrance door
 			placeDoor(world, rand, bounds, entryDoorType, 1, 1, 0);
 			// exit door
@@ -1509,6 +1513,17 @@ public class StrongholdGen {
 		}
 	}
 
+	/**
+	 * The weighted random pool of component types for the stronghold currently
+	 * being created
+	 */
+	private static class ComponentPool {
+		private final PoolEntry[] entries = createPoolEntries();
+		private List<PoolEntry> componentTypePool;
+		private ComponentCreator nextComponentCreator;
+		private int totalWeight;
+	}
+
 	/**
 	 * An entry into the weighted random pool
 	 */
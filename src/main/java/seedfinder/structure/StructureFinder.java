@@ -8,7 +8,9 @@ import java.util.Random;
 import java.util.Set;
 
 import seedfinder.util.ChunkPos;
+import seedfinder.util.JavaRandom;
 import seedfinder.util.Storage3D;
+import seedfinder.worldgen.ChunkSeeds;
 import seedfinder.worldgen.WorldGen;
 
 /**
@@ -83,13 +85,15 @@ public abstract class StructureFinder {
 	 * method are encouraged to cache the results where possible.
 	 */
 	public void findStructurePositions(Random rand, long worldSeed, ChunkPos fromPos, ChunkPos toPos) {
+		ChunkSeeds chunkSeeds = WorldGen.getChunkSeeds(worldSeed);
+
 		for (int x = Math.min(fromPos.getX(), toPos.getX()), xe = Math.max(fromPos.getX(),
 				toPos.getX()); x <= xe; x++) {
 			for (int z = Math.min(fromPos.getZ(), toPos.getZ()), ze = Math.max(fromPos.getZ(),
 					toPos.getZ()); z <= ze; z++) {
 				ChunkPos pos = new ChunkPos(x, z);
 
-				WorldGen.setMapGenSeedForChunk(rand, worldSeed, x, z);
+				rand.setSeed(chunkSeeds.getMapGenSeed(x, z));
 				rand.nextInt(); // Only God and Mojang know...
 
 				if (isStructureAt(rand, worldSeed, pos)) {
@@ -124,9 +128,10 @@ public abstract class StructureFinder {
 		int popZ = (chunkZ << 4) + 8;
 
 		// We need a separate RNG here with separate seeds
-		Random structureLayoutRand = new Random();
+		Random structureLayoutRand = new JavaRandom();
+		ChunkSeeds chunkSeeds = WorldGen.getChunkSeeds(worldSeed);
 		structurePositions.forEach(structurePos -> {
-			WorldGen.setMapGenSeedForChunk(structureLayoutRand, worldSeed, structurePos.getX(), structurePos.getZ());
+			structureLayoutRand.setSeed(chunkSeeds.getMapGenSeed(structurePos.getX(), structurePos.getZ()));
 			Structure structure = getStructure(structureLayoutRand, structurePos);
 
 			if (structure.isValid() && structure.getBoundingBox().intersectsWith(popX, popZ, popX + 15, popZ + 15)) {
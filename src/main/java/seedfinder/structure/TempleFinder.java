@@ -1,19 +1,24 @@
 package seedfinder.structure;
 
 import java.util.Random;
-import java.util.Set;
 
 import seedfinder.biome.BiomeProvider;
+import seedfinder.biome.BiomeSet;
 import seedfinder.biome.Biomes;
 import seedfinder.util.ChunkPos;
 
 public class TempleFinder extends ScatteredStructureFinder {
 
-	public static final TempleFinder INSTANCE = new TempleFinder();
+	// Finders cache structures for the current seed, so each thread has its own
+	private static final ThreadLocal<TempleFinder> INSTANCE = ThreadLocal.withInitial(TempleFinder::new);
 
-	private static final Set<Integer> ALLOWED_BIOMES = Biomes.setOf(Biomes.DESERT, Biomes.DESERT_HILLS, Biomes.JUNGLE,
+	private static final BiomeSet ALLOWED_BIOMES = Biomes.setOf(Biomes.DESERT, Biomes.DESERT_HILLS, Biomes.JUNGLE,
 			Biomes.JUNGLE_HILLS, Biomes.ICE_FLATS, Biomes.TAIGA_COLD);
 
+	public static TempleFinder getInstance() {
+		return INSTANCE.get();
+	}
+
 	private TempleFinder() {
 		super(14357617);
 	}
@@ -369,7 +369,8 @@ public class TempleGen {
 		private boolean placedHiddenChest;
 		private boolean placedFirstDispenser;
 		private boolean placedSecondDispenser;
-		private static final CobblestoneSelector cobblestoneSelector = new CobblestoneSelector();
+		private static final ThreadLocal<CobblestoneSelector> cobblestoneSelectors = ThreadLocal
+				.withInitial(CobblestoneSelector::new);
 
 		public JungleTemple(Random rand, int x, int z) {
 			super(rand, x, 64, z, 12, 10, 15);
@@ -377,6 +378,8 @@ public class TempleGen {
 
 		@Override
 		public boolean placeInWorld(Storage3D world, Random rand, AABB bounds) {
+			CobblestoneSelector cobblestoneSelector = cobblestoneSelectors.get();
+
 			if (!offsetToAverageGroundLevel(world, bounds, 0)) {
 				return false;
 			}
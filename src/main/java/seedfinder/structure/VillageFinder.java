@@ -2,19 +2,24 @@ package seedfinder.structure;
 
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 
 import seedfinder.biome.BiomeProvider;
+import seedfinder.biome.BiomeSet;
 import seedfinder.biome.Biomes;
 import seedfinder.util.ChunkPos;
 
 public class VillageFinder extends ScatteredStructureFinder {
 
-	public static final VillageFinder INSTANCE = new VillageFinder();
+	// Finders cache structures for the current seed, so each thread has its own
+	private static final ThreadLocal<VillageFinder> INSTANCE = ThreadLocal.withInitial(VillageFinder::new);
 
-	private static final Set<Integer> ALLOWED_BIOMES = Biomes.setOf(Biomes.PLAINS, Biomes.DESERT, Biomes.SAVANNA,
+	private static final BiomeSet ALLOWED_BIOMES = Biomes.setOf(Biomes.PLAINS, Biomes.DESERT, Biomes.SAVANNA,
 			Biomes.TAIGA);
 
+	public static VillageFinder getInstance() {
+		return INSTANCE.get();
+	}
+
 	private VillageFinder() {
 		super(10387312);
 	}
@@ -10,6 +10,7 @@ import seedfinder.ItemStack;
 import seedfinder.loot.LootContext;
 import seedfinder.loot.LootTable;
 import seedfinder.util.BlockPos;
+import seedfinder.util.JavaRandom;
 
 public class GatherChestsTask extends Task {
 
@@ -34,7 +35,7 @@ public class GatherChestsTask extends Task {
 
 	private Map<BlockPos, List<ItemStack>> generateChests(Predicate<Chest> predicate) {
 		Map<BlockPos, List<ItemStack>> chests = new HashMap<>();
-		Random rand = new Random();
+		Random rand = new JavaRandom();
 		LootContext context = new LootContext();
 		this.chests.values().stream().filter(predicate).forEach(it -> {
 			rand.setSeed(it.seed);
@@ -4,23 +4,25 @@ import java.util.Optional;
 
 public abstract class Task {
 
-	private static Task currentTask;
+	// Each search thread works on its own task
+	private static final ThreadLocal<Task> currentTask = new ThreadLocal<>();
 
 	public static void setCurrentTask(Task task) {
-		currentTask = task;
+		currentTask.set(task);
 	}
 
 	@SuppressWarnings("unchecked")
 	public static <T extends Task> Optional<T> getCurrentTask(Type type) {
-		if (currentTask.type == type) {
-			return Optional.of((T) currentTask);
+		Task task = currentTask.get();
+		if (task.type == type) {
+			return Optional.of((T) task);
 		} else {
 			return Optional.empty();
 		}
 	}
 
 	public static boolean isCurrentTaskOfType(Type type) {
-		return currentTask.type == type;
+		return currentTask.get().type == type;
 	}
 
 	private final Type type;
@@ -0,0 +1,138 @@
+package seedfinder.util;
+
+import java.util.Random;
+
+/**
+ * A drop-in replacement for {@link Random} which produces exactly the same
+ * numbers, but without the thread safety. <tt>java.util.Random</tt> updates its
+ * seed with an atomic compare-and-set on every call, which we don't need since
+ * each RNG is only ever used by one thread. Being cheap to reseed, one instance
+ * can also be re-used instead of creating a new RNG for each seed.
+ */
+public final class JavaRandom extends Random {
+
+	private static final long serialVersionUID = -4585939318446839547L;
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	// Set by setSeed, which is called from the super constructor, so these
+	// must not have initializers
+	private long seed;
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian;
+
+	/**
+	 * Creates a new RNG with an arbitrary seed
+	 */
+	public JavaRandom() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * Creates a new RNG with the given seed
+	 */
+	public JavaRandom(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		this.seed = (seed ^ MULTIPLIER) & MASK;
+		haveNextNextGaussian = false;
+	}
+
+	/**
+	 * Skips the given number of calls to {@link #next(int)}, in logarithmic
+	 * time. Note that {@link #nextLong()} and {@link #nextDouble()} each make
+	 * two calls, and {@link #nextInt(int)} may make more than one if the bound
+	 * is not a power of 2.
+	 */
+	public void skip(long calls) {
+		long multiplier = 1;
+		long addend = 0;
+		long stepMultiplier = MULTIPLIER;
+		long stepAddend = ADDEND;
+
+		// Square-and-multiply on the LCG as an affine map
+		for (; calls > 0; calls >>>= 1) {
+			if ((calls & 1) != 0) {
+				multiplier *= stepMultiplier;
+				addend = addend * stepMultiplier + stepAddend;
+			}
+			stepAddend *= stepMultiplier + 1;
+			stepMultiplier *= stepMultiplier;
+		}
+
+		seed = seed * multiplier + addend & MASK;
+	}
+
+	@Override
+	protected int next(int bits) {
+		seed = seed * MULTIPLIER + ADDEND & MASK;
+		return (int) (seed >>> 48 - bits);
+	}
+
+	@Override
+	public int nextInt() {
+		return next(32);
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+
+		int r = next(31);
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+			// bound is a power of 2
+			return (int) (bound * (long) r >> 31);
+		}
+		for (int u = r; u - (r = u % bound) + m < 0; u = next(31)) {
+		}
+		return r;
+	}
+
+	@Override
+	public long nextLong() {
+		return ((long) next(32) << 32) + next(32);
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return next(1) != 0;
+	}
+
+	@Override
+	public float nextFloat() {
+		return next(24) / (float) (1 << 24);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (((long) next(26) << 27) + next(27)) * 0x1.0p-53;
+	}
+
+	@Override
+	public double nextGaussian() {
+		if (haveNextNextGaussian) {
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+}
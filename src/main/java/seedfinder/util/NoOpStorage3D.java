@@ -0,0 +1,73 @@
+package seedfinder.util;
+
+import java.util.Arrays;
+
+/**
+ * A 3D volume which discards everything written to it, and reads back the same
+ * value everywhere. Used to run code for its RNG calls alone, without having to
+ * generate or store a world.
+ */
+public class NoOpStorage3D extends Storage3D {
+
+	private final int value;
+
+	/**
+	 * Creates a new volume which always reads back the given value
+	 */
+	public NoOpStorage3D(int value) {
+		super(value);
+		this.value = value;
+	}
+
+	@Override
+	public int get(int x, int y, int z) {
+		return value;
+	}
+
+	@Override
+	public void set(int x, int y, int z, int value) {
+	}
+
+	@Override
+	public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int value) {
+	}
+
+	@Override
+	public void getAll(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] dest) {
+		Arrays.fill(dest, 0, (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1), value);
+	}
+
+	@Override
+	public void setAll(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] src) {
+	}
+
+	@Override
+	public void getColumn(int x, int z, int minY, int maxY, int[] dest, int offset) {
+		Arrays.fill(dest, offset, offset + maxY - minY + 1, value);
+	}
+
+	@Override
+	public void setColumn(int x, int z, int minY, int maxY, int[] src, int offset) {
+	}
+
+	@Override
+	public void eraseAndAllocate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+	}
+
+	@Override
+	public void reallocate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+	}
+
+	@Override
+	public void ensureAllocated(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+	}
+
+	@Override
+	public void ensureAllocated(int x, int y, int z) {
+	}
+
+	@Override
+	public void prune() {
+	}
+
+}
@@ -0,0 +1,574 @@
+package seedfinder.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A 3D volume of ints stored in 16x16x16 sections, like the sections of a
+ * Minecraft chunk. Each section stores its values as indices into a palette of
+ * the values in it, packed into longs with as few bits as the palette needs,
+ * or just the one value if the whole section holds it. Generated terrain only
+ * has a few different blocks in each section, so this takes a fraction of the
+ * memory of a flat {@link Storage3D}, and clearing it only has to clear the
+ * sections.
+ */
+public class SectionedStorage3D extends Storage3D {
+
+	private static final int SECTION_VOLUME = 16 * 16 * 16;
+
+	private final int _default;
+
+	/**
+	 * The position the sections are aligned to, which moves with the values
+	 */
+	private int originX;
+	private int originY;
+	private int originZ;
+
+	/**
+	 * The allocated volume, relative to the origin. All values in the sections
+	 * outside it are the default value.
+	 */
+	private boolean allocated = false;
+	private int minX;
+	private int minY;
+	private int minZ;
+	private int maxX;
+	private int maxY;
+	private int maxZ;
+
+	/**
+	 * The sections covering the allocated volume, laid out in the x-direction,
+	 * then the y-direction, then the z-direction. Section coordinates are
+	 * relative to the origin.
+	 */
+	private Section[] sections = new Section[0];
+	private int minSectionX;
+	private int minSectionY;
+	private int minSectionZ;
+	private int xSections;
+	private int ySections;
+	private int zSections;
+
+	/**
+	 * Sections no longer in use, kept to be reused with their arrays
+	 */
+	private final List<Section> spareSections = new ArrayList<>();
+
+	/**
+	 * Creates a new sectioned 3D volume of ints with the given default value.
+	 */
+	public SectionedStorage3D(int _default) {
+		super(_default);
+		this._default = _default;
+	}
+
+	@Override
+	public int get(int x, int y, int z) {
+		x -= originX;
+		y -= originY;
+		z -= originZ;
+		int sectionX = (x >> 4) - minSectionX;
+		int sectionY = (y >> 4) - minSectionY;
+		int sectionZ = (z >> 4) - minSectionZ;
+		if ((sectionX | sectionY | sectionZ) < 0 || sectionX >= xSections || sectionY >= ySections
+				|| sectionZ >= zSections) {
+			return _default;
+		}
+
+		return sections[sectionX + (sectionY + sectionZ * ySections) * xSections].get(getIndex(x, y, z));
+	}
+
+	@Override
+	public void set(int x, int y, int z, int value) {
+		x -= originX;
+		y -= originY;
+		z -= originZ;
+		if (!allocated || x < minX || y < minY || z < minZ || x > maxX || y > maxY || z > maxZ) {
+			ensureAllocated(x + originX, y + originY, z + originZ);
+		}
+		getSection(x >> 4, y >> 4, z >> 4).set(getIndex(x, y, z), value);
+	}
+
+	@Override
+	public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int value) {
+		ensureAllocated(minX, minY, minZ, maxX, maxY, maxZ);
+		minX -= originX;
+		minY -= originY;
+		minZ -= originZ;
+		maxX -= originX;
+		maxY -= originY;
+		maxZ -= originZ;
+
+		for (int sectionZ = minZ >> 4; sectionZ <= maxZ >> 4; sectionZ++) {
+			int fromZ = Math.max(minZ, sectionZ << 4);
+			int toZ = Math.min(maxZ, (sectionZ << 4) + 15);
+			for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+				int fromY = Math.max(minY, sectionY << 4);
+				int toY = Math.min(maxY, (sectionY << 4) + 15);
+				for (int sectionX = minX >> 4; sectionX <= maxX >> 4; sectionX++) {
+					int fromX = Math.max(minX, sectionX << 4);
+					int toX = Math.min(maxX, (sectionX << 4) + 15);
+					Section section = getSection(sectionX, sectionY, sectionZ);
+					if (toX - fromX == 15 && toY - fromY == 15 && toZ - fromZ == 15) {
+						section.reset(value);
+						continue;
+					}
+					for (int z = fromZ; z <= toZ; z++) {
+						for (int y = fromY; y <= toY; y++) {
+							for (int x = fromX; x <= toX; x++) {
+								section.set(getIndex(x, y, z), value);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void getAll(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] dest) {
+		int destIndex = 0;
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				for (int x = minX; x <= maxX; x++) {
+					dest[destIndex++] = get(x, y, z);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void setAll(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] src) {
+		ensureAllocated(minX, minY, minZ, maxX, maxY, maxZ);
+
+		int srcIndex = 0;
+		for (int z = minZ - originZ; z <= maxZ - originZ; z++) {
+			for (int y = minY - originY; y <= maxY - originY; y++) {
+				for (int x = minX - originX; x <= maxX - originX; x++) {
+					getSection(x >> 4, y >> 4, z >> 4).set(getIndex(x, y, z), src[srcIndex++]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void getColumn(int x, int z, int minY, int maxY, int[] dest, int offset) {
+		for (int y = minY; y <= maxY; y++) {
+			dest[offset++] = get(x, y, z);
+		}
+	}
+
+	@Override
+	public void setColumn(int x, int z, int minY, int maxY, int[] src, int offset) {
+		ensureAllocated(x, minY, z, x, maxY, z);
+		x -= originX;
+		z -= originZ;
+
+		// One section at a time
+		int y = minY - originY;
+		int endY = maxY - originY;
+		while (y <= endY) {
+			Section section = getSection(x >> 4, y >> 4, z >> 4);
+			int sectionEndY = Math.min(endY, y | 15);
+			for (; y <= sectionEndY; y++) {
+				section.set(getIndex(x, y, z), src[offset++]);
+			}
+		}
+	}
+
+	@Override
+	public void moveAll(int dx, int dy, int dz) {
+		originX += dx;
+		originY += dy;
+		originZ += dz;
+	}
+
+	@Override
+	public void clear() {
+		for (Section section : sections) {
+			section.reset(_default);
+		}
+	}
+
+	@Override
+	public void erase() {
+		sections = new Section[0];
+		spareSections.clear();
+		allocated = false;
+		xSections = 0;
+		ySections = 0;
+		zSections = 0;
+	}
+
+	@Override
+	public void eraseAndAllocate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		reallocate(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	@Override
+	public void reallocate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		if (maxX < minX) {
+			throw new IllegalArgumentException("maxX < minX");
+		}
+		if (maxY < minY) {
+			throw new IllegalArgumentException("maxY < minY");
+		}
+		if (maxZ < minZ) {
+			throw new IllegalArgumentException("maxZ < minZ");
+		}
+
+		// Nothing is kept, so the sections can line up with chunks again
+		originX = 0;
+		originY = 0;
+		originZ = 0;
+		allocateNew(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	@Override
+	public void ensureAllocated(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		if (minX > maxX) {
+			throw new IllegalArgumentException("minX > maxX");
+		}
+		if (minY > maxY) {
+			throw new IllegalArgumentException("minY > maxY");
+		}
+		if (minZ > maxZ) {
+			throw new IllegalArgumentException("minZ > maxZ");
+		}
+
+		if (!allocated) {
+			allocateNew(minX - originX, minY - originY, minZ - originZ, maxX - originX, maxY - originY,
+					maxZ - originZ);
+		} else {
+			ensureAllocated(minX, minY, minZ);
+			ensureAllocated(maxX, maxY, maxZ);
+		}
+	}
+
+	@Override
+	public void ensureAllocated(int x, int y, int z) {
+		x -= originX;
+		y -= originY;
+		z -= originZ;
+		if (!allocated) {
+			allocateNew(x, y, z, x, y, z);
+			return;
+		}
+		if (x >= minX && y >= minY && z >= minZ && x <= maxX && y <= maxY && z <= maxZ) {
+			return;
+		}
+
+		minX = Math.min(minX, x);
+		minY = Math.min(minY, y);
+		minZ = Math.min(minZ, z);
+		maxX = Math.max(maxX, x);
+		maxY = Math.max(maxY, y);
+		maxZ = Math.max(maxZ, z);
+		int sectionX = x >> 4;
+		int sectionY = y >> 4;
+		int sectionZ = z >> 4;
+		if (sectionX < minSectionX || sectionY < minSectionY || sectionZ < minSectionZ
+				|| sectionX >= minSectionX + xSections || sectionY >= minSectionY + ySections
+				|| sectionZ >= minSectionZ + zSections) {
+			resizeSections();
+		}
+	}
+
+	@Override
+	public void prune() {
+		if (!allocated) {
+			return;
+		}
+
+		int newMinX = Integer.MAX_VALUE, newMinY = Integer.MAX_VALUE, newMinZ = Integer.MAX_VALUE;
+		int newMaxX = Integer.MIN_VALUE, newMaxY = Integer.MIN_VALUE, newMaxZ = Integer.MIN_VALUE;
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				for (int x = minX; x <= maxX; x++) {
+					if (getSection(x >> 4, y >> 4, z >> 4).get(getIndex(x, y, z)) != _default) {
+						newMinX = Math.min(newMinX, x);
+						newMinY = Math.min(newMinY, y);
+						newMinZ = Math.min(newMinZ, z);
+						newMaxX = Math.max(newMaxX, x);
+						newMaxY = Math.max(newMaxY, y);
+						newMaxZ = Math.max(newMaxZ, z);
+					}
+				}
+			}
+		}
+
+		if (newMinX > newMaxX) {
+			erase();
+			return;
+		}
+		// The values cut off are the default value, as the sections need
+		minX = newMinX;
+		minY = newMinY;
+		minZ = newMinZ;
+		maxX = newMaxX;
+		maxY = newMaxY;
+		maxZ = newMaxZ;
+		resizeSections();
+		spareSections.clear();
+	}
+
+	@Override
+	public String toString() {
+		if (!allocated) {
+			return "[empty]";
+		}
+
+		int maxLen = 1;
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				for (int x = minX; x <= maxX; x++) {
+					maxLen = Math.max(maxLen,
+							Integer.toString(get(x + originX, y + originY, z + originZ)).length());
+				}
+			}
+		}
+
+		StringBuilder str = new StringBuilder();
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				for (int x = minX; x <= maxX; x++) {
+					String strVal = Integer.toString(get(x + originX, y + originY, z + originZ));
+					for (int i = strVal.length(); i <= maxLen; i++) {
+						str.append(" ");
+					}
+					str.append(strVal);
+				}
+				str.append("\n");
+			}
+			str.append("\n");
+		}
+
+		return String.format("minX: %d, minY: %d, minZ: %d\n\n%s", minX + originX, minY + originY, minZ + originZ,
+				str);
+	}
+
+	private static int getIndex(int x, int y, int z) {
+		return x & 15 | (y & 15) << 4 | (z & 15) << 8;
+	}
+
+	/**
+	 * Gets the section at the given section coordinates, relative to the
+	 * origin, which must be allocated
+	 */
+	private Section getSection(int sectionX, int sectionY, int sectionZ) {
+		return sections[sectionX - minSectionX
+				+ (sectionY - minSectionY + (sectionZ - minSectionZ) * ySections) * xSections];
+	}
+
+	/**
+	 * Discards all the values, and allocates the given volume, relative to the
+	 * origin
+	 */
+	private void allocateNew(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		for (Section section : sections) {
+			spareSections.add(section);
+		}
+		sections = new Section[0];
+		xSections = 0;
+		ySections = 0;
+		zSections = 0;
+
+		allocated = true;
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+		resizeSections();
+	}
+
+	/**
+	 * Makes the sections cover exactly the allocated volume, keeping the
+	 * sections which are still in it
+	 */
+	private void resizeSections() {
+		int newMinSectionX = minX >> 4;
+		int newMinSectionY = minY >> 4;
+		int newMinSectionZ = minZ >> 4;
+		int newXSections = (maxX >> 4) - newMinSectionX + 1;
+		int newYSections = (maxY >> 4) - newMinSectionY + 1;
+		int newZSections = (maxZ >> 4) - newMinSectionZ + 1;
+		Section[] newSections = new Section[newXSections * newYSections * newZSections];
+
+		int index = 0;
+		for (int sectionZ = newMinSectionZ; sectionZ < newMinSectionZ + newZSections; sectionZ++) {
+			for (int sectionY = newMinSectionY; sectionY < newMinSectionY + newYSections; sectionY++) {
+				for (int sectionX = newMinSectionX; sectionX < newMinSectionX + newXSections; sectionX++) {
+					Section section;
+					if (sectionX >= minSectionX && sectionY >= minSectionY && sectionZ >= minSectionZ
+							&& sectionX < minSectionX + xSections && sectionY < minSectionY + ySections
+							&& sectionZ < minSectionZ + zSections) {
+						section = getSection(sectionX, sectionY, sectionZ);
+					} else if (!spareSections.isEmpty()) {
+						section = spareSections.remove(spareSections.size() - 1);
+						section.reset(_default);
+					} else {
+						section = new Section(_default);
+					}
+					newSections[index++] = section;
+				}
+			}
+		}
+
+		// Keep the sections which fell out of the volume
+		for (int sectionZ = minSectionZ; sectionZ < minSectionZ + zSections; sectionZ++) {
+			for (int sectionY = minSectionY; sectionY < minSectionY + ySections; sectionY++) {
+				for (int sectionX = minSectionX; sectionX < minSectionX + xSections; sectionX++) {
+					if (sectionX < newMinSectionX || sectionY < newMinSectionY || sectionZ < newMinSectionZ
+							|| sectionX >= newMinSectionX + newXSections || sectionY >= newMinSectionY + newYSections
+							|| sectionZ >= newMinSectionZ + newZSections) {
+						spareSections.add(getSection(sectionX, sectionY, sectionZ));
+					}
+				}
+			}
+		}
+
+		sections = newSections;
+		minSectionX = newMinSectionX;
+		minSectionY = newMinSectionY;
+		minSectionZ = newMinSectionZ;
+		xSections = newXSections;
+		ySections = newYSections;
+		zSections = newZSections;
+	}
+
+	/**
+	 * A 16x16x16 section of values, laid out in the x-direction, then the
+	 * y-direction, then the z-direction
+	 */
+	private static final class Section {
+		/**
+		 * The number of bits in each palette index, a power of two. 0 if the
+		 * whole section holds the first value of the palette. A section can't
+		 * hold more than 4096 values, so never needs more than 16.
+		 */
+		private int bits;
+		private int bitsShift;
+		private int indexShift;
+		private int entryMask;
+		private int valueMask;
+
+		/**
+		 * The values in the section. Values which are overwritten are not
+		 * removed.
+		 */
+		private int[] palette = new int[2];
+		private int paletteSize;
+		/**
+		 * The palette index of the last value set, as the same value tends to
+		 * be set many times in a row
+		 */
+		private int lastPaletteIndex;
+		/**
+		 * The palette indices, packed into longs. Kept when the section is
+		 * reset, to be reused.
+		 */
+		private long[] data = new long[1];
+
+		public Section(int value) {
+			reset(value);
+		}
+
+		/**
+		 * Sets the whole section to the given value
+		 */
+		public void reset(int value) {
+			// Every index then reads as 0, without needing a special case
+			bits = 0;
+			bitsShift = 0;
+			indexShift = 12;
+			entryMask = 0;
+			valueMask = 0;
+			palette[0] = value;
+			paletteSize = 1;
+			lastPaletteIndex = 0;
+		}
+
+		public int get(int index) {
+			long word = data[index >>> indexShift];
+			return palette[(int) (word >>> ((index & entryMask) << bitsShift)) & valueMask];
+		}
+
+		public void set(int index, int value) {
+			int paletteIndex = lastPaletteIndex;
+			if (palette[paletteIndex] != value) {
+				paletteIndex = indexOf(value);
+				if (paletteIndex < 0) {
+					paletteIndex = addToPalette(value);
+				}
+				lastPaletteIndex = paletteIndex;
+			}
+
+			int wordIndex = index >>> indexShift;
+			int shift = (index & entryMask) << bitsShift;
+			data[wordIndex] = data[wordIndex] & ~((long) valueMask << shift) | (long) paletteIndex << shift;
+		}
+
+		private int indexOf(int value) {
+			for (int i = 0; i < paletteSize; i++) {
+				if (palette[i] == value) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds the given value to the palette, making room for its index, and
+		 * returns its index
+		 */
+		private int addToPalette(int value) {
+			if (paletteSize == 1 << bits) {
+				resize(bits == 0 ? 1 : bits << 1);
+			}
+			if (paletteSize == palette.length) {
+				palette = Arrays.copyOf(palette, paletteSize << 1);
+			}
+			palette[paletteSize] = value;
+			return paletteSize++;
+		}
+
+		private void resize(int newBits) {
+			int oldBits = bits;
+			int oldBitsShift = bitsShift;
+			int oldIndexShift = indexShift;
+			int oldEntryMask = entryMask;
+			int oldValueMask = valueMask;
+
+			bits = newBits;
+			bitsShift = Integer.numberOfTrailingZeros(newBits);
+			indexShift = 6 - bitsShift;
+			entryMask = (1 << indexShift) - 1;
+			valueMask = (1 << newBits) - 1;
+
+			int length = SECTION_VOLUME >> indexShift;
+			if (data.length < length) {
+				data = Arrays.copyOf(data, length);
+			}
+			if (oldBits == 0) {
+				// Everything is the first value
+				Arrays.fill(data, 0, length, 0);
+				return;
+			}
+
+			// Going backwards, each index is only written over once it has been
+			// read, as the indices only move further along
+			for (int index = SECTION_VOLUME - 1; index >= 0; index--) {
+				long oldWord = data[index >>> oldIndexShift];
+				long paletteIndex = oldWord >>> ((index & oldEntryMask) << oldBitsShift) & oldValueMask;
+				int wordIndex = index >>> indexShift;
+				int shift = (index & entryMask) << bitsShift;
+				data[wordIndex] = data[wordIndex] & ~((long) valueMask << shift) | paletteIndex << shift;
+			}
+		}
+	}
+
+}
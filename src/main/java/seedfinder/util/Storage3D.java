@@ -69,6 +69,83 @@ public class Storage3D {
 		}
 	}
 
+	/**
+	 * Copies the values in the cuboid with opposite corners (minX, minY, minZ)
+	 * and (maxX + 1, maxY + 1, maxZ + 1) into the given array, laid out in the
+	 * x-direction, then the y-direction, then the z-direction
+	 */
+	public void getAll(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] dest) {
+		int xSizeToCopy = maxX - minX + 1;
+		int destIndex = 0;
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				if (minX >= this.minX && maxX < this.minX + xSize && y >= this.minY && y < this.minY + ySize
+						&& z >= this.minZ && z < this.minZ + zSize) {
+					int index = minX - this.minX + (y - this.minY + (z - this.minZ) * ySize) * xSize;
+					System.arraycopy(values, index, dest, destIndex, xSizeToCopy);
+					destIndex += xSizeToCopy;
+				} else {
+					for (int x = minX; x <= maxX; x++) {
+						dest[destIndex++] = get(x, y, z);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the values in the cuboid with opposite corners (minX, minY, minZ)
+	 * and (maxX + 1, maxY + 1, maxZ + 1) from the given array, laid out as in
+	 * {@link #getAll(int, int, int, int, int, int, int[])}
+	 */
+	public void setAll(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] src) {
+		ensureAllocated(minX, minY, minZ, maxX, maxY, maxZ);
+
+		int xSizeToCopy = maxX - minX + 1;
+		int srcIndex = 0;
+		for (int z = minZ; z <= maxZ; z++) {
+			for (int y = minY; y <= maxY; y++) {
+				int index = minX - this.minX + (y - this.minY + (z - this.minZ) * ySize) * xSize;
+				System.arraycopy(src, srcIndex, values, index, xSizeToCopy);
+				srcIndex += xSizeToCopy;
+			}
+		}
+	}
+
+	/**
+	 * Copies the values in the column at (x, z) from minY to maxY into the
+	 * given array, starting at the given offset
+	 */
+	public void getColumn(int x, int z, int minY, int maxY, int[] dest, int offset) {
+		if (x < minX || z < minZ || x >= minX + xSize || z >= minZ + zSize || minY < this.minY
+				|| maxY >= this.minY + ySize) {
+			for (int y = minY; y <= maxY; y++) {
+				dest[offset++] = get(x, y, z);
+			}
+			return;
+		}
+
+		int index = x - this.minX + (minY - this.minY + (z - this.minZ) * ySize) * xSize;
+		for (int y = minY; y <= maxY; y++) {
+			dest[offset++] = values[index];
+			index += xSize;
+		}
+	}
+
+	/**
+	 * Sets the values in the column at (x, z) from minY to maxY from the given
+	 * array, starting at the given offset
+	 */
+	public void setColumn(int x, int z, int minY, int maxY, int[] src, int offset) {
+		ensureAllocated(x, minY, z, x, maxY, z);
+
+		int index = x - this.minX + (minY - this.minY + (z - this.minZ) * ySize) * xSize;
+		for (int y = minY; y <= maxY; y++) {
+			values[index] = src[offset++];
+			index += xSize;
+		}
+	}
+
 	/**
 	 * Translates all the values in this 3D volume by the vector (dx, dy, dz)
 	 */
@@ -0,0 +1,196 @@
+package seedfinder.worldgen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import seedfinder.util.AABB;
+import seedfinder.util.ChunkPos;
+import seedfinder.util.JavaRandom;
+
+/**
+ * The tunnels of a carver, such as caves or ravines, which start in each chunk
+ * of one world seed. Each chunk is carved by the tunnels starting in the
+ * chunks up to {@link #RANGE} chunks away, so the tunnels of each chunk are
+ * found once and shared by all the chunks around it, rather than being found
+ * again for every chunk carved. Each tunnel knows how far it can reach, so
+ * chunks only carve the tunnels which can reach them.
+ */
+class CarverIndex {
+
+	/**
+	 * How far away, in chunks, a tunnel can carve from the chunk it starts in
+	 */
+	public static final int RANGE = 8;
+	/**
+	 * The length of the longest tunnel, before the random amount taken off it
+	 */
+	public static final int MAX_DISTANCE = RANGE * 16 - 16;
+
+	/**
+	 * The number of chunks whose tunnels are remembered. A 3x3 area of chunks
+	 * needs those of 19x19 chunks.
+	 */
+	private static final int MAX_CHUNKS = 4096;
+
+	private static final Tunnel[] NO_TUNNELS = new Tunnel[0];
+
+	private final long worldSeed;
+	private final TunnelFinder finder;
+	private final List<Tunnel> foundTunnels = new ArrayList<>();
+	private final JavaRandom lengthRand = new JavaRandom();
+
+	private final Map<ChunkPos, Tunnel[]> tunnelsByChunk = new LinkedHashMap<ChunkPos, Tunnel[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ChunkPos, Tunnel[]> eldest) {
+			return size() > MAX_CHUNKS;
+		}
+	};
+
+	public CarverIndex(long worldSeed, TunnelFinder finder) {
+		this.worldSeed = worldSeed;
+		this.finder = finder;
+	}
+
+	public long getWorldSeed() {
+		return worldSeed;
+	}
+
+	/**
+	 * Gets the tunnels starting in the given chunk, in the order they are
+	 * carved. Uses the given RNG to find them if they aren't known yet.
+	 */
+	public Tunnel[] getTunnels(Random rand, int chunkX, int chunkZ) {
+		ChunkPos pos = new ChunkPos(chunkX, chunkZ);
+		Tunnel[] tunnels = tunnelsByChunk.get(pos);
+		if (tunnels == null) {
+			rand.setSeed(WorldGen.getChunkSeeds(worldSeed).getMapGenSeed(chunkX, chunkZ));
+			foundTunnels.clear();
+			finder.findTunnels(rand, chunkX, chunkZ, foundTunnels);
+			if (foundTunnels.isEmpty()) {
+				tunnels = NO_TUNNELS;
+			} else {
+				tunnels = foundTunnels.toArray(new Tunnel[foundTunnels.size()]);
+				for (Tunnel tunnel : tunnels) {
+					tunnel.findReach(lengthRand);
+				}
+			}
+			tunnelsByChunk.put(pos, tunnels);
+		}
+		return tunnels;
+	}
+
+	/**
+	 * Gets the columns of the given chunk which are in the region of interest,
+	 * or null if there are none. A null region is the whole chunk.
+	 */
+	public static AABB getCarvedArea(int chunkX, int chunkZ, AABB regionOfInterest) {
+		int minX = chunkX << 4;
+		int minZ = chunkZ << 4;
+		int maxX = minX + 15;
+		int maxZ = minZ + 15;
+		if (regionOfInterest != null) {
+			minX = Math.max(minX, regionOfInterest.getMinX());
+			minZ = Math.max(minZ, regionOfInterest.getMinZ());
+			maxX = Math.min(maxX, regionOfInterest.getMaxX());
+			maxZ = Math.min(maxZ, regionOfInterest.getMaxZ());
+			if (minX > maxX || minZ > maxZ) {
+				return null;
+			}
+		}
+		return new AABB(minX, 0, minZ, maxX, 255, maxZ);
+	}
+
+	/**
+	 * Returns whether a tunnel at the given position, with the given number of
+	 * steps left, might still carve blocks in the given area, either itself or
+	 * through its branches. Branches are never wider than the tunnel.
+	 */
+	public static boolean canReach(AABB area, double x, double z, int stepsLeft, float maxRadius) {
+		// As in Tunnel.findReach
+		double reach = stepsLeft + 1.5 + maxRadius + 2;
+		return x + reach >= area.getMinX() && x - reach <= area.getMaxX() + 1 && z + reach >= area.getMinZ()
+				&& z - reach <= area.getMaxZ() + 1;
+	}
+
+	@FunctionalInterface
+	public static interface TunnelFinder {
+		/**
+		 * Adds the tunnels starting in the given chunk to the list, using the
+		 * given RNG, which has been seeded for the chunk
+		 */
+		void findTunnels(Random rand, int chunkX, int chunkZ, List<Tunnel> tunnels);
+	}
+
+	/**
+	 * The arguments of the first call to <tt>addTunnel</tt> for a tunnel or
+	 * room, and the area the tunnel and its branches can carve
+	 */
+	public static class Tunnel {
+		public final long seed;
+		public final double x;
+		public final double y;
+		public final double z;
+		public final float maxRadius;
+		public final float yaw;
+		public final float pitch;
+		public final int startDistance;
+		public final int endDistance;
+		public final double widthToHeightRatio;
+
+		private int minX;
+		private int minZ;
+		private int maxX;
+		private int maxZ;
+
+		public Tunnel(long seed, double x, double y, double z, float maxRadius, float yaw, float pitch,
+				int startDistance, int endDistance, double widthToHeightRatio) {
+			this.seed = seed;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.maxRadius = maxRadius;
+			this.yaw = yaw;
+			this.pitch = pitch;
+			this.startDistance = startDistance;
+			this.endDistance = endDistance;
+			this.widthToHeightRatio = widthToHeightRatio;
+		}
+
+		/**
+		 * Works out the area the tunnel can carve. Each step moves the tunnel
+		 * at most one block, and branches carry on from where they split off,
+		 * so no part of it gets further from the start than the number of
+		 * steps.
+		 */
+		private void findReach(JavaRandom rand) {
+			int endDistance = this.endDistance;
+			if (endDistance <= 0) {
+				// The first thing the tunnel does
+				rand.setSeed(seed);
+				endDistance = MAX_DISTANCE - rand.nextInt(MAX_DISTANCE / 4);
+			}
+			int startDistance = this.startDistance == -1 ? endDistance / 2 : this.startDistance;
+
+			// Radius is at most 1.5 + maxRadius, and the carved area goes a
+			// block past it on each side, plus rounding down
+			double reach = endDistance - startDistance + 1.5 + maxRadius + 2;
+			minX = (int) Math.floor(x - reach);
+			minZ = (int) Math.floor(z - reach);
+			maxX = (int) Math.ceil(x + reach);
+			maxZ = (int) Math.ceil(z + reach);
+		}
+
+		/**
+		 * Returns whether the tunnel might carve any blocks in the given area
+		 */
+		public boolean reaches(AABB area) {
+			return area.intersectsWith(minX, minZ, maxX, maxZ);
+		}
+	}
+
+}
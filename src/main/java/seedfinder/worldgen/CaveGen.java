@@ -1,26 +1,62 @@
 package seedfinder.worldgen;
 
+import java.util.List;
 import java.util.Random;
 
 import seedfinder.Blocks;
+import seedfinder.util.AABB;
+import seedfinder.util.JavaRandom;
 import seedfinder.util.MathHelper;
-import seedfinder.util.Storage3D;
 
 public class CaveGen {
 
-	private static final int RANGE = 8;
+	private static final int RANGE = CarverIndex.RANGE;
+
+	// Re-seeded for each tunnel, rather than creating a new RNG each time
+	private static final ThreadLocal<JavaRandom> tunnelRands = ThreadLocal.withInitial(JavaRandom::new);
+	// The tunnels of the current seed, shared between neighbouring chunks
+	private static final ThreadLocal<CarverIndex> tunnelIndices = new ThreadLocal<>();
+
+	/**
+	 * Carves the caves in the given chunk. The given RNG is used to find the
+	 * caves starting in the chunks around it which aren't known yet.
+	 */
+	public static void generate(Random rand, long seed, int x, int z, ChunkPrimer chunk) {
+		generate(rand, seed, x, z, chunk, null);
+	}
+
+	/**
+	 * Carves the caves in the part of the given chunk inside the region of
+	 * interest, or the whole chunk if it is null. Other blocks in the chunk
+	 * may or may not be carved.
+	 */
+	public static void generate(Random rand, long seed, int x, int z, ChunkPrimer chunk, AABB regionOfInterest) {
+		AABB carvedArea = CarverIndex.getCarvedArea(x, z, regionOfInterest);
+		if (carvedArea == null) {
+			return;
+		}
+
+		JavaRandom tunnelRand = tunnelRands.get();
+		CarverIndex index = tunnelIndices.get();
+		if (index == null || index.getWorldSeed() != seed) {
+			index = new CarverIndex(seed, CaveGen::findTunnels);
+			tunnelIndices.set(index);
+		}
 
-	public static void generate(Random rand, long seed, int x, int z, Storage3D chunk) {
 		for (int dx = -RANGE; dx <= RANGE; dx++) {
 			for (int dz = -RANGE; dz <= RANGE; dz++) {
-				WorldGen.setMapGenSeedForChunk(rand, seed, x + dx, z + dz);
-				recursiveGenerate(rand, x + dx, z + dz, x, z, chunk);
+				for (CarverIndex.Tunnel tunnel : index.getTunnels(rand, x + dx, z + dz)) {
+					if (tunnel.reaches(carvedArea)) {
+						addTunnel(tunnelRand, tunnel.seed, x, z, carvedArea, chunk, tunnel.x, tunnel.y, tunnel.z,
+								tunnel.maxRadius, tunnel.yaw, tunnel.pitch, tunnel.startDistance, tunnel.endDistance,
+								tunnel.widthToHeightRatio);
+					}
+				}
 			}
 		}
 	}
 
-	private static void recursiveGenerate(Random rand, int chunkX, int chunkZ, int originalX, int originalZ,
-			Storage3D chunk) {
+	private static void findTunnels(Random rand, int chunkX, int chunkZ, List<CarverIndex.Tunnel> tunnels) {
 		int tries = rand.nextInt(rand.nextInt(rand.nextInt(15) + 1) + 1);
 
 		if (rand.nextInt(7) != 0) {
@@ -34,7 +70,9 @@ public class CaveGen {
 			int numTunnels = 1;
 
 			if (rand.nextInt(4) == 0) {
-				addRoom(rand, rand.nextLong(), originalX, originalZ, chunk, x, y, z);
+				long roomSeed = rand.nextLong();
+				tunnels.add(new CarverIndex.Tunnel(roomSeed, x, y, z, 1.0F + rand.nextFloat() * 6.0F, 0.0F, 0.0F, -1, -1,
+						0.5D));
 				numTunnels += rand.nextInt(4);
 			}
 
@@ -47,28 +85,26 @@ public class CaveGen {
 					maxRadius *= rand.nextFloat() * rand.nextFloat() * 3.0F + 1.0F;
 				}
 
-				addTunnel(rand.nextLong(), originalX, originalZ, chunk, x, y, z, maxRadius, yaw, pitch, 0, 0, 1.0D);
+				tunnels.add(new CarverIndex.Tunnel(rand.nextLong(), x, y, z, maxRadius, yaw, pitch, 0, 0, 1.0D));
 			}
 		}
 	}
 
-	protected static void addRoom(Random rand, long tunnelSeed, int originalX, int originalZ, Storage3D chunk, double x,
-			double y, double z) {
-		addTunnel(tunnelSeed, originalX, originalZ, chunk, x, y, z, 1.0F + rand.nextFloat() * 6.0F, 0.0F, 0.0F, -1, -1,
-				0.5D);
-	}
-
-	protected static void addTunnel(long tunnelSeed, int originalX, int originalZ, Storage3D chunk, double x, double y,
-			double z, float maxRadius, float yaw, float pitch, int startDistance, int endDistance,
-			double widthToHeightRatio) {
+	/**
+	 * Carves a tunnel, using the given RNG re-seeded with the tunnel seed. Stops
+	 * once the tunnel can no longer reach the carved area.
+	 */
+	protected static void addTunnel(JavaRandom rand, long tunnelSeed, int originalX, int originalZ, AABB carvedArea,
+			ChunkPrimer chunk, double x, double y, double z, float maxRadius, float yaw, float pitch, int startDistance,
+			int endDistance, double widthToHeightRatio) {
 		double chunkCenterX = originalX * 16 + 8;
 		double chunkCenterZ = originalZ * 16 + 8;
 		float deltaYaw = 0.0F;
 		float deltaPitch = 0.0F;
-		Random rand = new Random(tunnelSeed);
+		rand.setSeed(tunnelSeed);
 
 		if (endDistance <= 0) {
-			int maxDistance = RANGE * 16 - 16;
+			int maxDistance = CarverIndex.MAX_DISTANCE;
 			endDistance = maxDistance - rand.nextInt(maxDistance / 4);
 		}
 
@@ -92,6 +128,12 @@ public class CaveGen {
 			y += dy;
 			z += MathHelper.sin(yaw) * dh;
 
+			if (!CarverIndex.canReach(carvedArea, x, z, endDistance - distance, maxRadius)) {
+				// Nothing else uses this tunnel's RNG, so it doesn't matter
+				// that the rest of it, and its branches, aren't drawn
+				return;
+			}
+
 			if (steep) {
 				pitch = pitch * 0.92F;
 			} else {
@@ -106,9 +148,15 @@ public class CaveGen {
 			deltaYaw = deltaYaw + (rand.nextFloat() - rand.nextFloat()) * rand.nextFloat() * 4.0F;
 
 			if (!isRoom && distance == tJunctionDistance && maxRadius > 1.0F && endDistance > 0) {
-				addTunnel(rand.nextLong(), originalX, originalZ, chunk, x, y, z, rand.nextFloat() * 0.5F + 0.5F,
+				// The branches re-seed our RNG, so take everything we need from
+				// it first
+				long leftSeed = rand.nextLong();
+				float leftRadius = rand.nextFloat() * 0.5F + 0.5F;
+				long rightSeed = rand.nextLong();
+				float rightRadius = rand.nextFloat() * 0.5F + 0.5F;
+				addTunnel(rand, leftSeed, originalX, originalZ, carvedArea, chunk, x, y, z, leftRadius,
 						yaw - (float) Math.PI / 2F, pitch / 3.0F, distance, endDistance, 1.0D);
-				addTunnel(rand.nextLong(), originalX, originalZ, chunk, x, y, z, rand.nextFloat() * 0.5F + 0.5F,
+				addTunnel(rand, rightSeed, originalX, originalZ, carvedArea, chunk, x, y, z, rightRadius,
 						yaw + (float) Math.PI / 2F, pitch / 3.0F, distance, endDistance, 1.0D);
 				return;
 			}
@@ -0,0 +1,102 @@
+package seedfinder.worldgen;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import seedfinder.util.AABB;
+import seedfinder.util.ChunkPos;
+import seedfinder.util.Storage3D;
+
+/**
+ * Generated chunks of one world seed, before population, so that the passes
+ * over a seed which generate the same chunks (the portal room for both eye
+ * counts, then each chest) only generate each chunk once. The chunks are kept
+ * up to a byte budget, least recently used first out.
+ */
+class ChunkCache {
+
+	private static final int CHUNK_BYTES = 16 * 256 * 16 * 4;
+
+	private final long worldSeed;
+	private final long maxBytes;
+	private final LinkedHashMap<ChunkPos, CachedChunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes = 0;
+
+	public ChunkCache(long worldSeed, long maxBytes) {
+		this.worldSeed = worldSeed;
+		this.maxBytes = maxBytes;
+	}
+
+	public long getWorldSeed() {
+		return worldSeed;
+	}
+
+	/**
+	 * Returns whether the given chunk is cached with its caves and ravines
+	 * carved in at least the given area, which is null for none
+	 */
+	public boolean covers(int chunkX, int chunkZ, AABB carvedArea) {
+		CachedChunk chunk = chunks.get(new ChunkPos(chunkX, chunkZ));
+		if (chunk == null) {
+			return false;
+		}
+		if (carvedArea == null) {
+			return true;
+		}
+		AABB cachedArea = chunk.carvedArea;
+		return cachedArea != null && cachedArea.getMinX() <= carvedArea.getMinX()
+				&& cachedArea.getMinZ() <= carvedArea.getMinZ() && cachedArea.getMaxX() >= carvedArea.getMaxX()
+				&& cachedArea.getMaxZ() >= carvedArea.getMaxZ();
+	}
+
+	/**
+	 * Gets the area in which the given chunk's caves and ravines were carved,
+	 * or null if it isn't cached or nothing was carved
+	 */
+	public AABB getCarvedArea(int chunkX, int chunkZ) {
+		CachedChunk chunk = chunks.get(new ChunkPos(chunkX, chunkZ));
+		return chunk == null ? null : chunk.carvedArea;
+	}
+
+	/**
+	 * Copies the given chunk into the world. Only call this if the chunk is
+	 * cached.
+	 */
+	public void copyTo(int chunkX, int chunkZ, Storage3D world) {
+		CachedChunk chunk = chunks.get(new ChunkPos(chunkX, chunkZ));
+		world.setAll(chunkX << 4, 0, chunkZ << 4, (chunkX << 4) + 15, 255, (chunkZ << 4) + 15, chunk.blocks);
+	}
+
+	/**
+	 * Caches the given chunk of the world, which has just been generated into
+	 * a cleared area with its caves and ravines carved in the given area
+	 */
+	public void put(int chunkX, int chunkZ, AABB carvedArea, Storage3D world) {
+		if (maxBytes < CHUNK_BYTES) {
+			return;
+		}
+
+		ChunkPos pos = new ChunkPos(chunkX, chunkZ);
+		CachedChunk chunk = chunks.get(pos);
+		if (chunk == null) {
+			chunk = new CachedChunk();
+			chunks.put(pos, chunk);
+			bytes += CHUNK_BYTES;
+		}
+		chunk.carvedArea = carvedArea;
+		world.getAll(chunkX << 4, 0, chunkZ << 4, (chunkX << 4) + 15, 255, (chunkZ << 4) + 15, chunk.blocks);
+
+		Iterator<CachedChunk> eldest = chunks.values().iterator();
+		while (bytes > maxBytes && eldest.hasNext()) {
+			eldest.next();
+			eldest.remove();
+			bytes -= CHUNK_BYTES;
+		}
+	}
+
+	private static final class CachedChunk {
+		private final int[] blocks = new int[16 * 256 * 16];
+		private AABB carvedArea;
+	}
+
+}
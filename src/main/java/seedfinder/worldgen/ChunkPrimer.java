@@ -0,0 +1,71 @@
+package seedfinder.worldgen;
+
+import java.util.Arrays;
+
+import seedfinder.util.Storage3D;
+
+/**
+ * The blocks of one chunk while its terrain is generated, as in Minecraft. The
+ * blocks are laid out in the y-direction, then the z-direction, then the
+ * x-direction, so that each column is contiguous: the terrain, the surface
+ * blocks and the carvers all work down whole columns.
+ */
+public class ChunkPrimer {
+
+	private final int[] blocks = new int[16 * 16 * 256];
+
+	/**
+	 * Gets the block at the given position in the chunk
+	 */
+	public int get(int x, int y, int z) {
+		return blocks[getIndex(x, z) | y];
+	}
+
+	/**
+	 * Sets the block at the given position in the chunk
+	 */
+	public void set(int x, int y, int z, int block) {
+		blocks[getIndex(x, z) | y] = block;
+	}
+
+	/**
+	 * Sets all the blocks in the chunk to the given block
+	 */
+	public void fill(int block) {
+		Arrays.fill(blocks, block);
+	}
+
+	/**
+	 * Copies the blocks in the column at (x, z) from minY to maxY into the
+	 * given array, starting at the given offset
+	 */
+	public void getColumn(int x, int z, int minY, int maxY, int[] dest, int offset) {
+		System.arraycopy(blocks, getIndex(x, z) | minY, dest, offset, maxY - minY + 1);
+	}
+
+	/**
+	 * Sets the blocks in the column at (x, z) from minY to maxY from the given
+	 * array, starting at the given offset
+	 */
+	public void setColumn(int x, int z, int minY, int maxY, int[] src, int offset) {
+		System.arraycopy(src, offset, blocks, getIndex(x, z) | minY, maxY - minY + 1);
+	}
+
+	/**
+	 * Copies the chunk into the world at the given chunk coordinates, one
+	 * column at a time
+	 */
+	public void copyTo(Storage3D world, int chunkX, int chunkZ) {
+		world.ensureAllocated(chunkX << 4, 0, chunkZ << 4, (chunkX << 4) + 15, 255, (chunkZ << 4) + 15);
+		for (int x = 0; x < 16; x++) {
+			for (int z = 0; z < 16; z++) {
+				world.setColumn((chunkX << 4) + x, (chunkZ << 4) + z, 0, 255, blocks, getIndex(x, z));
+			}
+		}
+	}
+
+	private static int getIndex(int x, int z) {
+		return x << 12 | z << 8;
+	}
+
+}
@@ -0,0 +1,50 @@
+package seedfinder.worldgen;
+
+import java.util.Random;
+
+import seedfinder.util.JavaRandom;
+
+/**
+ * The per-chunk RNG seeds used for structure layout and population, for a
+ * single world seed. The multipliers are derived from the world seed once, so
+ * that getting the seed for a chunk only costs a couple of multiplications.
+ */
+public final class ChunkSeeds {
+
+	private final long worldSeed;
+	private final long mapGenMultiplierX;
+	private final long mapGenMultiplierZ;
+	private final long populationMultiplierX;
+	private final long populationMultiplierZ;
+
+	public ChunkSeeds(long worldSeed) {
+		this.worldSeed = worldSeed;
+
+		Random rand = new JavaRandom(worldSeed);
+		mapGenMultiplierX = rand.nextLong();
+		mapGenMultiplierZ = rand.nextLong();
+		// Population draws the same numbers, but makes them odd
+		populationMultiplierX = mapGenMultiplierX / 2 * 2 + 1;
+		populationMultiplierZ = mapGenMultiplierZ / 2 * 2 + 1;
+	}
+
+	public long getWorldSeed() {
+		return worldSeed;
+	}
+
+	/**
+	 * Gets the seed used for structure layout, and caves and ravines, starting
+	 * in the given chunk
+	 */
+	public long getMapGenSeed(int chunkX, int chunkZ) {
+		return chunkX * mapGenMultiplierX ^ chunkZ * mapGenMultiplierZ ^ worldSeed;
+	}
+
+	/**
+	 * Gets the seed used at the beginning of the population of the given chunk
+	 */
+	public long getPopulationSeed(int chunkX, int chunkZ) {
+		return chunkX * populationMultiplierX + chunkZ * populationMultiplierZ ^ worldSeed;
+	}
+
+}
@@ -1,29 +1,65 @@
 package seedfinder.worldgen;
 
+import java.util.List;
 import java.util.Random;
 
 import seedfinder.Blocks;
+import seedfinder.util.AABB;
+import seedfinder.util.JavaRandom;
 import seedfinder.util.MathHelper;
-import seedfinder.util.Storage3D;
 
 public class RavineGen {
 
-	private static final int RANGE = 8;
+	private static final int RANGE = CarverIndex.RANGE;
 
 	// TODO: why does this have to be 1024?
-	private static float[] radiusSqScaleByHeight = new float[1024];
+	private static final ThreadLocal<float[]> radiusSqScaleByHeight = ThreadLocal.withInitial(() -> new float[1024]);
+
+	// Re-seeded for each ravine, rather than creating a new RNG each time
+	private static final ThreadLocal<JavaRandom> tunnelRands = ThreadLocal.withInitial(JavaRandom::new);
+	// The ravines of the current seed, shared between neighbouring chunks
+	private static final ThreadLocal<CarverIndex> tunnelIndices = new ThreadLocal<>();
+
+	/**
+	 * Carves the ravines in the given chunk. The given RNG is used to find the
+	 * ravines starting in the chunks around it which aren't known yet.
+	 */
+	public static void generate(Random rand, long seed, int x, int z, ChunkPrimer chunk) {
+		generate(rand, seed, x, z, chunk, null);
+	}
+
+	/**
+	 * Carves the ravines in the part of the given chunk inside the region of
+	 * interest, or the whole chunk if it is null. Other blocks in the chunk
+	 * may or may not be carved.
+	 */
+	public static void generate(Random rand, long seed, int x, int z, ChunkPrimer chunk, AABB regionOfInterest) {
+		AABB carvedArea = CarverIndex.getCarvedArea(x, z, regionOfInterest);
+		if (carvedArea == null) {
+			return;
+		}
+
+		JavaRandom tunnelRand = tunnelRands.get();
+		CarverIndex index = tunnelIndices.get();
+		if (index == null || index.getWorldSeed() != seed) {
+			index = new CarverIndex(seed, RavineGen::findTunnels);
+			tunnelIndices.set(index);
+		}
 
-	public static void generate(Random rand, long seed, int x, int z, Storage3D chunk) {
 		for (int dx = -RANGE; dx <= RANGE; dx++) {
 			for (int dz = -RANGE; dz <= RANGE; dz++) {
-				WorldGen.setMapGenSeedForChunk(rand, seed, x + dx, z + dz);
-				recursiveGenerate(rand, x + dx, z + dz, x, z, chunk);
+				for (CarverIndex.Tunnel tunnel : index.getTunnels(rand, x + dx, z + dz)) {
+					if (tunnel.reaches(carvedArea)) {
+						addTunnel(tunnelRand, tunnel.seed, x, z, carvedArea, chunk, tunnel.x, tunnel.y, tunnel.z,
+								tunnel.maxRadius, tunnel.yaw, tunnel.pitch, tunnel.startDistance, tunnel.endDistance,
+								tunnel.widthToHeightRatio);
+					}
+				}
 			}
 		}
 	}
 
-	private static void recursiveGenerate(Random rand, int chunkX, int chunkZ, int originalX, int originalZ,
-			Storage3D chunk) {
+	private static void findTunnels(Random rand, int chunkX, int chunkZ, List<CarverIndex.Tunnel> tunnels) {
 		if (rand.nextInt(50) == 0) {
 			double x = chunkX * 16 + rand.nextInt(16);
 			double y = rand.nextInt(rand.nextInt(40) + 8) + 20;
@@ -34,22 +70,22 @@ public class RavineGen {
 				float yaw = rand.nextFloat() * ((float) Math.PI * 2F);
 				float pitch = (rand.nextFloat() - 0.5F) * 2.0F / 8.0F;
 				float maxRadius = (rand.nextFloat() * 2.0F + rand.nextFloat()) * 2.0F;
-				addTunnel(rand.nextLong(), originalX, originalZ, chunk, x, y, z, maxRadius, yaw, pitch, 0, 0, 3.0D);
+				tunnels.add(new CarverIndex.Tunnel(rand.nextLong(), x, y, z, maxRadius, yaw, pitch, 0, 0, 3.0D));
 			}
 		}
 	}
 
-	private static void addTunnel(long seed, int originalX, int originalZ, Storage3D chunk, double x, double y,
-			double z, float maxRadius, float yaw, float pitch, int startDistance, int endDistance,
-			double widthToHeightRatio) {
-		Random rand = new Random(seed);
+	private static void addTunnel(JavaRandom rand, long seed, int originalX, int originalZ, AABB carvedArea,
+			ChunkPrimer chunk, double x, double y, double z, float maxRadius, float yaw, float pitch, int startDistance,
+			int endDistance, double widthToHeightRatio) {
+		rand.setSeed(seed);
 		double chunkCenterX = originalX * 16 + 8;
 		double chunkCenterZ = originalZ * 16 + 8;
 		float deltaYaw = 0.0F;
 		float deltaPitch = 0.0F;
 
 		if (endDistance <= 0) {
-			int maxDistance = RANGE * 16 - 16;
+			int maxDistance = CarverIndex.MAX_DISTANCE;
 			endDistance = maxDistance - rand.nextInt(maxDistance / 4);
 		}
 
@@ -60,6 +96,7 @@ public class RavineGen {
 			isRoom = true;
 		}
 
+		float[] radiusSqScaleByHeight = RavineGen.radiusSqScaleByHeight.get();
 		float radiusSq = 1.0F;
 
 		for (int blockY = 0; blockY < 256; blockY++) {
@@ -80,6 +117,12 @@ public class RavineGen {
 			x += MathHelper.cos(yaw) * dh;
 			y += dy;
 			z += MathHelper.sin(yaw) * dh;
+
+			if (!CarverIndex.canReach(carvedArea, x, z, endDistance - distance, maxRadius)) {
+				// Nothing else uses this ravine's RNG, so it doesn't matter
+				// that the rest of it isn't drawn
+				return;
+			}
 			pitch = pitch * 0.7F;
 			pitch = pitch + deltaPitch * 0.05F;
 			yaw += deltaYaw * 0.05F;
@@ -7,10 +7,12 @@ import seedfinder.util.Storage3D;
 
 public class SkylightCalculator {
 
-	private static Storage2D heightMap = new Storage2D(0);
-	private static Storage3D skylight = new Storage3D(0);
+	private static final ThreadLocal<Storage2D> heightMaps = ThreadLocal.withInitial(() -> new Storage2D(0));
+	private static final ThreadLocal<Storage3D> skylights = ThreadLocal.withInitial(() -> new Storage3D(0));
 
 	public static Storage3D calcSkylight(Storage3D world, int minX, int minZ, int maxX, int maxZ) {
+		Storage2D heightMap = heightMaps.get();
+		Storage3D skylight = skylights.get();
 		heightMap.reallocate(minX, minZ, maxX, maxZ);
 		int maxHeight = Integer.MIN_VALUE;
 
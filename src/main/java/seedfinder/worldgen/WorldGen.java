@@ -13,30 +13,49 @@ import seedfinder.task.DoneEnoughException;
 import seedfinder.util.AABB;
 import seedfinder.util.ChunkPos;
 import seedfinder.util.MathHelper;
+import seedfinder.util.SectionedStorage3D;
 import seedfinder.util.Storage3D;
 
 public class WorldGen {
 
-	private static int[] biomesForGeneration;
-	private static final double[] heightMap = new double[825];
+	/**
+	 * Each thread gets its own noise generators and buffers, so that several
+	 * seeds can be searched at once
+	 */
+	private static final ThreadLocal<WorldGen> CONTEXT = ThreadLocal.withInitial(WorldGen::new);
+
 	private static final float[] biomeWeights = new float[25];
-	private static double[] depthRegion;
-	private static double[] mainNoiseRegion;
-	private static double[] minLimitRegion;
-	private static double[] maxLimitRegion;
-	private static double[] depthBuffer = new double[256];
-
-	private static NoiseGeneratorOctaves minLimitPerlinNoise;
-	private static NoiseGeneratorOctaves maxLimitPerlinNoise;
-	private static NoiseGeneratorOctaves mainPerlinNoise;
-	private static NoiseGeneratorPerlin surfaceNoise;
+
+	/**
+	 * The default number of bytes of generated chunks each thread keeps for
+	 * its current seed
+	 */
+	public static final long DEFAULT_CHUNK_CACHE_SIZE = 16L << 20;
+	private static volatile long chunkCacheSize = DEFAULT_CHUNK_CACHE_SIZE;
+	private static volatile boolean sectionedWorlds = false;
+
+	private int[] biomesForGeneration;
+	private final double[] heightMap = new double[825];
+	private double[] depthRegion;
+	private double[] mainNoiseRegion;
+	private double[] minLimitRegion;
+	private double[] maxLimitRegion;
+	private double[] depthBuffer = new double[256];
+	private final ChunkPrimer primer = new ChunkPrimer();
+
+	private NoiseGeneratorOctaves minLimitPerlinNoise;
+	private NoiseGeneratorOctaves maxLimitPerlinNoise;
+	private NoiseGeneratorOctaves mainPerlinNoise;
+	private NoiseGeneratorPerlin surfaceNoise;
 	@SuppressWarnings("unused") // in case we need to use it later
-	private static NoiseGeneratorOctaves scaleNoise;
-	private static NoiseGeneratorOctaves depthNoise;
+	private NoiseGeneratorOctaves scaleNoise;
+	private NoiseGeneratorOctaves depthNoise;
 	@SuppressWarnings("unused") // in case we need to use it later
-	private static NoiseGeneratorOctaves forestNoise;
-	public static NoiseGeneratorPerlin mesaPillarNoise;
-	public static NoiseGeneratorPerlin mesaPillarRoofNoise;
+	private NoiseGeneratorOctaves forestNoise;
+	private NoiseGeneratorPerlin mesaPillarNoise;
+	private NoiseGeneratorPerlin mesaPillarRoofNoise;
+	private ChunkSeeds chunkSeeds;
+	private ChunkCache chunkCache;
 
 	private WorldGen() {
 	}
@@ -50,6 +69,18 @@ public class WorldGen {
 	}
 
 	public static void setWorldSeed(Random rand, long seed) {
+		CONTEXT.get().initNoiseGenerators(rand, seed);
+	}
+
+	public static NoiseGeneratorPerlin getMesaPillarNoise() {
+		return CONTEXT.get().mesaPillarNoise;
+	}
+
+	public static NoiseGeneratorPerlin getMesaPillarRoofNoise() {
+		return CONTEXT.get().mesaPillarRoofNoise;
+	}
+
+	private void initNoiseGenerators(Random rand, long seed) {
 		rand.setSeed(seed);
 		minLimitPerlinNoise = new NoiseGeneratorOctaves(rand, 16);
 		maxLimitPerlinNoise = new NoiseGeneratorOctaves(rand, 16);
@@ -64,32 +95,110 @@ public class WorldGen {
 	}
 
 	public static void createOverworld(Random rand, long seed, int x, int z, Storage3D chunk) {
+		createOverworld(rand, seed, x, z, chunk, null);
+	}
+
+	/**
+	 * Generates the given chunk, only carving the caves and ravines which can
+	 * reach the columns in the given region of interest, or all of them if it
+	 * is null. The blocks outside the region may be left uncarved. The chunk is
+	 * generated in a {@link ChunkPrimer}, then its columns are copied into the
+	 * world, replacing all the blocks there.
+	 */
+	public static void createOverworld(Random rand, long seed, int x, int z, Storage3D chunk,
+			AABB regionOfInterest) {
 		ChunkPos pos = new ChunkPos(x, z);
-		chunk.moveAll(x * -16, 0, z * -16);
+		WorldGen context = CONTEXT.get();
+		ChunkPrimer primer = context.primer;
+		primer.fill(Blocks.AIR);
 
 		rand.setSeed(x * 341873128712L + z * 132897987541L);
-		setBlocksInChunk(x, z, chunk);
-		biomesForGeneration = BiomeProvider.getBiomesForGeneration(biomesForGeneration, x * 16, z * 16, 16, 16);
-		replaceBiomeBlocks(rand, x, z, chunk, biomesForGeneration);
+		context.setBlocksInChunk(x, z, primer);
+		context.biomesForGeneration = BiomeProvider.getBiomesForGeneration(context.biomesForGeneration, x * 16,
+				z * 16, 16, 16);
+		context.replaceBiomeBlocks(rand, x, z, primer, context.biomesForGeneration);
+
+		CaveGen.generate(rand, seed, x, z, primer, regionOfInterest);
+		RavineGen.generate(rand, seed, x, z, primer, regionOfInterest);
+
+		findStructuresAffectingChunk(rand, seed, pos);
 
-		CaveGen.generate(rand, seed, x, z, chunk);
-		RavineGen.generate(rand, seed, x, z, chunk);
+		primer.copyTo(chunk, x, z);
+	}
+
+	/**
+	 * Generates the given chunk into the world, which must be cleared there,
+	 * in the same way as
+	 * {@link #createOverworld(Random, long, int, int, Storage3D, AABB)}. If
+	 * the chunk has already been generated for this seed, carved in at least
+	 * the region of interest, it is copied from the chunk cache instead.
+	 */
+	private static void createOverworldCached(Random rand, long seed, int x, int z, Storage3D world,
+			AABB regionOfInterest) {
+		ChunkCache cache = getChunkCache(seed);
+		AABB carvedArea = CarverIndex.getCarvedArea(x, z, regionOfInterest);
+		if (cache.covers(x, z, carvedArea)) {
+			cache.copyTo(x, z, world);
+			findStructuresAffectingChunk(rand, seed, new ChunkPos(x, z));
+			return;
+		}
+
+		// Carve everything the cached chunk had too, so that it only grows
+		AABB cachedArea = cache.getCarvedArea(x, z);
+		if (cachedArea != null) {
+			carvedArea = carvedArea == null ? cachedArea : AABB.max(cachedArea, carvedArea);
+		}
+		createOverworld(rand, seed, x, z, world, carvedArea == null ? regionOfInterest : carvedArea);
+		cache.put(x, z, carvedArea, world);
+	}
+
+	private static void findStructuresAffectingChunk(Random rand, long seed, ChunkPos pos) {
+		MineshaftFinder.getInstance().findStructurePositionsAffectingChunk(rand, seed, pos);
+		VillageFinder.getInstance().findStructurePositionsAffectingChunk(rand, seed, pos);
+		StrongholdFinder.getInstance().findStructurePositionsAffectingChunk(rand, seed, pos);
+		TempleFinder.getInstance().findStructurePositionsAffectingChunk(rand, seed, pos);
+	}
+
+	/**
+	 * Sets the number of bytes of generated chunks each thread keeps for its
+	 * current seed. Zero turns the cache off.
+	 */
+	public static void setChunkCacheSize(long bytes) {
+		chunkCacheSize = bytes;
+	}
+
+	/**
+	 * Sets whether {@link #createWorld()} creates worlds stored in palette
+	 * compressed sections, rather than flat arrays
+	 */
+	public static void setSectionedWorlds(boolean sectioned) {
+		sectionedWorlds = sectioned;
+	}
 
-		MineshaftFinder.INSTANCE.findStructurePositionsAffectingChunk(rand, seed, pos);
-		VillageFinder.INSTANCE.findStructurePositionsAffectingChunk(rand, seed, pos);
-		StrongholdFinder.INSTANCE.findStructurePositionsAffectingChunk(rand, seed, pos);
-		TempleFinder.INSTANCE.findStructurePositionsAffectingChunk(rand, seed, pos);
+	/**
+	 * Creates an empty world to generate and populate chunks in
+	 */
+	public static Storage3D createWorld() {
+		return sectionedWorlds ? new SectionedStorage3D(Blocks.AIR) : new Storage3D(Blocks.AIR);
+	}
 
-		chunk.moveAll(x * 16, 0, z * 16);
+	private static ChunkCache getChunkCache(long worldSeed) {
+		WorldGen context = CONTEXT.get();
+		ChunkCache cache = context.chunkCache;
+		if (cache == null || cache.getWorldSeed() != worldSeed) {
+			cache = new ChunkCache(worldSeed, chunkCacheSize);
+			context.chunkCache = cache;
+		}
+		return cache;
 	}
 
 	public static void populateOverworld(Random rand, long seed, int x, int z, Storage3D chunk) {
 		setSeedForPopulation(rand, seed, x, z);
 
-		MineshaftFinder.INSTANCE.populate(chunk, rand, seed, x, z);
-		VillageFinder.INSTANCE.populate(chunk, rand, seed, x, z);
-		StrongholdFinder.INSTANCE.populate(chunk, rand, seed, x, z);
-		TempleFinder.INSTANCE.populate(chunk, rand, seed, x, z);
+		MineshaftFinder.getInstance().populate(chunk, rand, seed, x, z);
+		VillageFinder.getInstance().populate(chunk, rand, seed, x, z);
+		StrongholdFinder.getInstance().populate(chunk, rand, seed, x, z);
+		TempleFinder.getInstance().populate(chunk, rand, seed, x, z);
 	}
 
 	public static void createAndPopulatePosOverworld(Storage3D world, Random rand, long seed, int blockX, int blockZ) {
@@ -97,19 +206,12 @@ public class WorldGen {
 	}
 
 	public static void createAndPopulateBBOverworld(Storage3D world, Random rand, long seed, AABB bounds) {
+		createBBOverworld(world, rand, seed, bounds);
+
 		int minChunkX = bounds.getMinX() - 8 >> 4;
 		int minChunkZ = bounds.getMinZ() - 8 >> 4;
 		int maxChunkX = bounds.getMaxX() - 8 >> 4;
 		int maxChunkZ = bounds.getMaxZ() - 8 >> 4;
-
-		world.reallocate(minChunkX << 4, 0, minChunkZ << 4, (maxChunkX + 1 << 4) + 15, 255, (maxChunkZ + 1 << 4) + 15);
-
-		for (int chunkX = minChunkX; chunkX <= maxChunkX + 1; chunkX++) {
-			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ + 1; chunkZ++) {
-				createOverworld(rand, seed, chunkX, chunkZ, world);
-			}
-		}
-
 		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
 			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
 				try {
@@ -120,7 +222,33 @@ public class WorldGen {
 		}
 	}
 
-	private static void setBlocksInChunk(int x, int z, Storage3D chunk) {
+	/**
+	 * Generates, through the chunk cache, the chunks which population of the
+	 * given area needs, without populating them. The world is reallocated to
+	 * just those chunks.
+	 */
+	public static void createBBOverworld(Storage3D world, Random rand, long seed, AABB bounds) {
+		int minChunkX = bounds.getMinX() - 8 >> 4;
+		int minChunkZ = bounds.getMinZ() - 8 >> 4;
+		int maxChunkX = bounds.getMaxX() - 8 >> 4;
+		int maxChunkZ = bounds.getMaxZ() - 8 >> 4;
+
+		world.reallocate(minChunkX << 4, 0, minChunkZ << 4, (maxChunkX + 1 << 4) + 15, 255, (maxChunkZ + 1 << 4) + 15);
+
+		// Population only looks at the columns it populates, which are offset
+		// by 8 blocks from the chunks, so carving the rest of the generated
+		// chunks makes no difference
+		AABB populatedArea = new AABB((minChunkX << 4) + 8, 0, (minChunkZ << 4) + 8, (maxChunkX << 4) + 23, 255,
+				(maxChunkZ << 4) + 23);
+
+		for (int chunkX = minChunkX; chunkX <= maxChunkX + 1; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ + 1; chunkZ++) {
+				createOverworldCached(rand, seed, chunkX, chunkZ, world, populatedArea);
+			}
+		}
+	}
+
+	private void setBlocksInChunk(int x, int z, ChunkPrimer chunk) {
 		biomesForGeneration = BiomeProvider.getBiomesForGeneration(biomesForGeneration, x * 4 - 2, z * 4 - 2, 10, 10);
 		generateHeightmap(x * 4, 0, z * 4);
 
@@ -183,7 +311,7 @@ public class WorldGen {
 		}
 	}
 
-	private static void generateHeightmap(int x, int y, int z) {
+	private void generateHeightmap(int x, int y, int z) {
 		depthRegion = depthNoise.generateNoiseOctaves(depthRegion, x, z, 5, 5, 200.0, 200.0, 0.5);
 		final float coordScale = 684.412F;
 		final float heightScale = 684.412F;
@@ -281,7 +409,7 @@ public class WorldGen {
 		}
 	}
 
-	private static void replaceBiomeBlocks(Random rand, int x, int z, Storage3D chunk, int[] biomes) {
+	private void replaceBiomeBlocks(Random rand, int x, int z, ChunkPrimer chunk, int[] biomes) {
 		depthBuffer = surfaceNoise.getRegion(depthBuffer, x * 16, z * 16, 16, 16, 0.0625, 0.0625, 1);
 
 		for (int dz = 0; dz < 16; dz++) {
@@ -292,15 +420,26 @@ public class WorldGen {
 		}
 	}
 
+	/**
+	 * Gets the chunk seeds for the given world seed. They are cached, so this
+	 * is cheap as long as the same world seed is used repeatedly.
+	 */
+	public static ChunkSeeds getChunkSeeds(long worldSeed) {
+		WorldGen context = CONTEXT.get();
+		ChunkSeeds seeds = context.chunkSeeds;
+		if (seeds == null || seeds.getWorldSeed() != worldSeed) {
+			seeds = new ChunkSeeds(worldSeed);
+			context.chunkSeeds = seeds;
+		}
+		return seeds;
+	}
+
 	/**
 	 * Sets a random seed used for structure layout, called individually by each
 	 * structure generator
 	 */
 	public static void setMapGenSeedForChunk(Random rand, long worldSeed, int chunkX, int chunkZ) {
-		rand.setSeed(worldSeed);
-		long a = rand.nextLong();
-		long b = rand.nextLong();
-		rand.setSeed(chunkX * a ^ chunkZ * b ^ worldSeed);
+		rand.setSeed(getChunkSeeds(worldSeed).getMapGenSeed(chunkX, chunkZ));
 	}
 
 	/**
@@ -315,10 +454,7 @@ public class WorldGen {
 	 * Called at the beginning of each chunk population
 	 */
 	public static void setSeedForPopulation(Random rand, long worldSeed, int chunkX, int chunkZ) {
-		rand.setSeed(worldSeed);
-		long a = rand.nextLong() / 2 * 2 + 1;
-		long b = rand.nextLong() / 2 * 2 + 1;
-		rand.setSeed(chunkX * a + chunkZ * b ^ worldSeed);
+		rand.setSeed(getChunkSeeds(worldSeed).getPopulationSeed(chunkX, chunkZ));
 	}
 
 }